@@ -0,0 +1,42 @@
+package org.novize.api.auth;
+
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable principal kept in the security context for the duration of a request. It is built from the
+ * claims of an access token in stateless mode, otherwise from the loaded user, so the {@link User} entity
+ * and its associations are not held by the request. Controllers that need the full {@link User} still get
+ * it via {@code @AuthenticationPrincipal User}, see {@link AuthenticatedUserArgumentResolver}.
+ *
+ * @param id       the id of the user
+ * @param username the username (email) of the user
+ * @param role     the role of the user
+ */
+public record AuthenticatedUser(String id, String username, RoleEnum role) implements UserDetails {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole().getName());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
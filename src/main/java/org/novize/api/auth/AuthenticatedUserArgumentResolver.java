@@ -0,0 +1,55 @@
+package org.novize.api.auth;
+
+import org.novize.api.model.User;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@code @AuthenticationPrincipal User} parameters. The principal is an {@link AuthenticatedUser}, the
+ * full user is only loaded for endpoints that actually ask for it. In stateful mode the user the
+ * {@link JwtAuthenticationFilter} already loaded is reused.
+ */
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+    private final UserDetailsService userDetailsService;
+
+    public AuthenticatedUserArgumentResolver(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(AuthenticationPrincipal.class)
+                && User.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User user) {
+            return user;
+        }
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            Object loaded = webRequest.getAttribute(JwtAuthenticationFilter.LOADED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (loaded instanceof User user && user.getId().equals(authenticatedUser.id())) {
+                return user;
+            }
+            return userDetailsService.loadUserByUsername(authenticatedUser.username());
+        }
+        return null;
+    }
+}
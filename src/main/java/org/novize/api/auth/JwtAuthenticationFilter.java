@@ -4,7 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.JwtException;
+import org.novize.api.model.User;
 import org.novize.api.services.JwtService;
+import org.novize.api.services.SecurityStampService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -20,19 +24,32 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    /**
+     * Request attribute holding the {@link User} the filter loaded in stateful mode, reused by
+     * {@link AuthenticatedUserArgumentResolver} so a request looks the user up only once.
+     */
+    public static final String LOADED_USER_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".loadedUser";
+
     private final HandlerExceptionResolver handlerExceptionResolver;
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityStampService securityStampService;
+    // Zustandsloser Modus: Principal nur aus den Claims, ohne Datenbankzugriff
+    private final boolean stateless;
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             UserDetailsService userDetailsService,
-            HandlerExceptionResolver handlerExceptionResolver
+            SecurityStampService securityStampService,
+            HandlerExceptionResolver handlerExceptionResolver,
+            @Value("${security.jwt.stateless:false}") boolean stateless
     ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.securityStampService = securityStampService;
         this.handlerExceptionResolver = handlerExceptionResolver;
+        this.stateless = stateless;
     }
 
     @Override
@@ -50,28 +67,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwt);
+            // Prüft Signatur und Ablauf in einem Durchgang, wirft bei ungültigem Token
+            final JwtPrincipal principal = jwtService.validate(jwt);
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            if (userEmail != null && authentication == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                // Check if the token is valid
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-
-                    // Set principal in the request attribute for later use
-                    request.setAttribute("user", userDetails);
-                    // Set authentication details
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    // Set authentication in SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+            if (authentication == null) {
+                UserDetails userDetails = loadUserDetails(principal, request);
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
 
-                }
+                // Set principal in the request attribute for later use
+                request.setAttribute("user", userDetails);
+                // Set authentication details
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                // Set authentication in SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
 
             filterChain.doFilter(request, response);
@@ -79,4 +93,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             handlerExceptionResolver.resolveException(request, response, null, exception);
         }
     }
+
+    private UserDetails loadUserDetails(JwtPrincipal principal, HttpServletRequest request) {
+        if (stateless && principal.isStateless()) {
+            if (!securityStampService.isCurrent(principal.userId(), principal.stamp())) {
+                throw new JwtException("Token has been revoked");
+            }
+            return new AuthenticatedUser(principal.userId(), principal.username(), principal.role());
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(principal.username());
+        if (!(userDetails instanceof User user)) {
+            return userDetails;
+        }
+        // Der Benutzer ist ohnehin geladen, der Stempel kann ohne weitere Abfrage geprüft werden
+        if (principal.stamp() != null && !principal.stamp().equals(user.getSecurityStamp())) {
+            throw new JwtException("Token has been revoked");
+        }
+        // Für Endpunkte, die den ganzen Benutzer brauchen, nicht erneut laden
+        request.setAttribute(LOADED_USER_ATTRIBUTE, user);
+        // Nur die schlanke Sicht bleibt für den Rest des Requests im SecurityContext
+        return AuthenticatedUser.of(user);
+    }
 }
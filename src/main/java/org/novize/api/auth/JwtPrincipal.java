@@ -0,0 +1,30 @@
+package org.novize.api.auth;
+
+import org.novize.api.enums.RoleEnum;
+
+import java.time.Instant;
+
+/**
+ * Immutable result of a successful JWT validation.
+ *
+ * @param username  the subject of the token (the email of the user)
+ * @param userId    the id of the user, null for tokens issued before ids were embedded
+ * @param role      the role of the user, null for tokens issued before roles were embedded
+ * @param stamp     the security stamp the token was issued with, null for older tokens
+ * @param issuedAt  when the token was issued
+ * @param expiresAt when the token expires
+ */
+public record JwtPrincipal(String username, String userId, RoleEnum role, Long stamp,
+                           Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /**
+     * @return true if the token carries everything needed to authenticate without loading the user
+     */
+    public boolean isStateless() {
+        return userId != null && role != null && stamp != null;
+    }
+}
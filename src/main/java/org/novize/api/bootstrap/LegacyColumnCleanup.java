@@ -0,0 +1,66 @@
+package org.novize.api.bootstrap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Removes columns that the entities no longer map. {@code ddl-auto=update} only adds columns, so without this
+ * step they would stay in existing databases with their old content.
+ * <p>
+ * {@code refresh_token.token} held the refresh tokens in plain text before only their hash was stored. It is
+ * cleared first and then dropped.
+ */
+@Order(0)
+@Component
+public class LegacyColumnCleanup implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger logger = LogManager.getLogger(LegacyColumnCleanup.class);
+
+    private static final List<LegacyColumn> LEGACY_COLUMNS = List.of(
+            new LegacyColumn("refresh_token", "token", true)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LegacyColumnCleanup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
+        LEGACY_COLUMNS.forEach(this::drop);
+    }
+
+    private void drop(LegacyColumn legacyColumn) {
+        String quote = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                    legacyColumn.table(), legacyColumn.column())) {
+                return columns.next() ? metaData.getIdentifierQuoteString().trim() : null;
+            }
+        });
+        if (quote == null) {
+            return;
+        }
+        String table = quote + legacyColumn.table() + quote;
+        String column = quote + legacyColumn.column() + quote;
+        if (legacyColumn.clearFirst()) {
+            int cleared = jdbcTemplate.update("UPDATE " + table + " SET " + column + " = NULL");
+            logger.info("Cleared {}.{} in {} rows", legacyColumn.table(), legacyColumn.column(), cleared);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+        logger.info("Dropped legacy column {}.{}", legacyColumn.table(), legacyColumn.column());
+    }
+
+    private record LegacyColumn(String table, String column, boolean clearFirst) {
+    }
+}
@@ -9,9 +9,10 @@ import org.novize.api.repository.TaskRepository;
 import org.novize.api.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +21,9 @@ import java.util.Optional;
 /**
  * TaskSeeder is a component that seeds tasks for a user when they successfully authenticate.
  * It listens for the AuthenticationSuccessEvent and creates default tasks for the user if they don't already exist.
+ * <p>
+ * Once a user has been seeded, {@link User#isTasksSeeded()} is set, so later logins reuse the
+ * authenticated principal and issue no query at all.
  */
 
 @Component
@@ -29,36 +33,53 @@ public class TaskSeeder implements ApplicationListener<AuthenticationSuccessEven
     private TaskRepository taskRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     @Override
     public void onApplicationEvent(AuthenticationSuccessEvent event) {
-        // Get the authenticated user
-        String username = event.getAuthentication().getName();
-        if (username == null || username.isEmpty()) {
-            logger.error("Username is null or empty");
-            return;
+        Authentication authentication = event.getAuthentication();
+        User user;
+        if (authentication.getPrincipal() instanceof User principal) {
+            // Der AuthenticationProvider hat den Benutzer bereits geladen
+            user = principal;
+        } else {
+            String username = authentication.getName();
+            if (username == null || username.isEmpty()) {
+                logger.error("Username is null or empty");
+                return;
+            }
+            Optional<User> optionalUser = userRepository.findByEmail(username);
+            if (optionalUser.isEmpty()) {
+                logger.error("User with ID {} not found in the repository", username);
+                return;
+            }
+            user = optionalUser.get();
         }
 
-
-        Optional<User> optionalUser = userRepository.findByEmail(username);
-        if (optionalUser.isEmpty()) {
-            logger.error("User with ID {} not found in the repository", username);
+        if (user.isTasksSeeded()) {
             return;
         }
         // Seed tasks for the authenticated user
-        seedTasksForUser(optionalUser.get());
+        transactionTemplate.executeWithoutResult(status -> seedTasksForUser(user.getId()));
+        user.setTasksSeeded(true);
     }
 
     /**
-     * Seeds tasks for the given user.
-     * But only if the user has no tasks.
+     * Seeds tasks for the given user and marks the user as seeded.
+     * Tasks are only created if the user has none, e.g. for accounts that existed before the flag.
      *
-     * @param user The user for whom to seed tasks.
+     * @param userId The id of the user for whom to seed tasks.
      */
-    private void seedTasksForUser(User user) {
+    private void seedTasksForUser(String userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null || user.isTasksSeeded()) {
+            return;
+        }
+        user.setTasksSeeded(true);
+
         // Check if the user already has tasks
-        var currentTasks = taskRepository.findByUserId(user.getId(), Sort.by("createdAt") );
-        if (currentTasks != null && !currentTasks.isEmpty()) {
+        if (taskRepository.existsByUserId(userId)) {
             logger.info("User {} already has tasks. Skipping seeding.", user.getUsername());
             return;
         }
@@ -69,4 +90,4 @@ public class TaskSeeder implements ApplicationListener<AuthenticationSuccessEven
 
         taskRepository.saveAll(tasks);
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,10 @@
 package org.novize.api.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.novize.api.auth.BoundedPasswordEncoder;
 import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,14 +14,28 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
 
 
 @Configuration
 public class ApplicationConfiguration {
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    @Value("${security.password.hashing.threads:2}")
+    private int hashingThreads;
+    @Value("${security.password.hashing.queue-capacity:50}")
+    private int hashingQueueCapacity;
+    @Value("${security.password.hashing.timeout:10s}")
+    private Duration hashingTimeout;
 
-    public ApplicationConfiguration(UserRepository userRepository) {
+    public ApplicationConfiguration(UserRepository userRepository, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -27,9 +44,14 @@ public class ApplicationConfiguration {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    /**
+     * BCrypt with a configurable cost, executed on a bounded executor so that login and signup bursts
+     * cannot starve the other endpoints.
+     */
     @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    BoundedPasswordEncoder passwordEncoder() {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        return new BoundedPasswordEncoder(bcrypt, hashingThreads, hashingQueueCapacity, hashingTimeout, meterRegistry);
     }
 
     @Bean
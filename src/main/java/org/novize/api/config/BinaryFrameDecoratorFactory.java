@@ -0,0 +1,87 @@
+package org.novize.api.config;
+
+import org.novize.api.enums.WireFormat;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends STOMP frames with a CBOR payload as binary WebSocket messages. Spring only uses binary messages for
+ * {@code application/octet-stream}; a CBOR payload in a text message would be mangled by the UTF-8 decoding.
+ * <p>
+ * SockJS can only carry text, such sessions are marked so that {@link WebSocketChannelInterceptor} rejects
+ * subscriptions to {@code *.cbor} destinations.
+ */
+@Component
+public class BinaryFrameDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+    /**
+     * Session attribute (also visible as STOMP session attribute), {@code true} if binary frames can be sent.
+     */
+    public static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+
+    private static final byte[] CBOR_CONTENT_TYPE =
+            ("\ncontent-type:" + WireFormat.CBOR.getMimeType()).getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                boolean binary = !(session instanceof SockJsSession);
+                session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, binary);
+                super.afterConnectionEstablished(binary ? new BinaryFrameSession(session) : session);
+            }
+        };
+    }
+
+    private static final class BinaryFrameSession extends WebSocketSessionDecorator {
+
+        BinaryFrameSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            // TextMessage(byte[]) behält die Originalbytes, asBytes() liefert sie unverändert zurück
+            if (message instanceof TextMessage text) {
+                byte[] frame = text.asBytes();
+                if (hasCborContentType(frame)) {
+                    super.sendMessage(new BinaryMessage(frame, text.isLast()));
+                    return;
+                }
+            }
+            super.sendMessage(message);
+        }
+    }
+
+    // Nur den Header-Block (bis zur ersten Leerzeile) durchsuchen
+    static boolean hasCborContentType(byte[] frame) {
+        int headerEnd = frame.length;
+        for (int i = 1; i < frame.length; i++) {
+            if (frame[i] == '\n' && frame[i - 1] == '\n') {
+                headerEnd = i;
+                break;
+            }
+        }
+        outer:
+        for (int i = 0; i + CBOR_CONTENT_TYPE.length <= headerEnd; i++) {
+            for (int j = 0; j < CBOR_CONTENT_TYPE.length; j++) {
+                if (frame[i + j] != CBOR_CONTENT_TYPE[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
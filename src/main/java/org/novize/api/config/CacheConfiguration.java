@@ -0,0 +1,35 @@
+package org.novize.api.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Configuration of the Hibernate second-level cache.
+ * The JCache manager is created by Caffeine itself so that the region settings are read from the classpath
+ * both in the IDE and inside the packaged jar.
+ */
+@Configuration
+public class CacheConfiguration {
+
+    @Value("${cache.caffeine.config:classpath:caffeine.conf}")
+    private String caffeineConfig;
+
+    @Bean
+    CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(caffeineConfig), getClass().getClassLoader());
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
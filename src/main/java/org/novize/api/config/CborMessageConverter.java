@@ -0,0 +1,36 @@
+package org.novize.api.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.novize.api.dtos.NotificationDto;
+import org.novize.api.enums.WireFormat;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+/**
+ * Jackson CBOR converter for the {@code *.cbor} STOMP destinations. It only handles messages whose content-type
+ * is {@code application/cbor}, everything else keeps using the JSON converter.
+ * <p>
+ * Null fields are omitted and {@link NotificationDto#getRecipient()} is dropped: the recipient is the user the
+ * frame is delivered to, repeating the full {@code UserDto} in every frame is wasted bandwidth.
+ */
+public class CborMessageConverter extends MappingJackson2MessageConverter {
+
+    public CborMessageConverter() {
+        super(WireFormat.CBOR.getMimeType());
+        setStrictContentTypeMatch(true);
+        setObjectMapper(createObjectMapper());
+    }
+
+    static ObjectMapper createObjectMapper() {
+        return Jackson2ObjectMapperBuilder.cbor()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .mixIn(NotificationDto.class, CompactNotification.class)
+                .build();
+    }
+
+    @JsonIgnoreProperties("recipient")
+    private abstract static class CompactNotification {
+    }
+}
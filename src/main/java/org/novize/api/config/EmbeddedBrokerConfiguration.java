@@ -0,0 +1,47 @@
+package org.novize.api.config;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+
+/**
+ * Starts an in-process Artemis broker with a STOMP acceptor for {@code websocket.broker.mode=embedded}.
+ * The application talks to it through the regular broker relay, so tests and single-box deployments run the
+ * same code path as a cluster behind an external broker.
+ */
+@Configuration
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "embedded")
+public class EmbeddedBrokerConfiguration {
+    // Nur lokal erreichbar, der Relay verbindet sich über Loopback
+    static final String HOST = "127.0.0.1";
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int port;
+
+    @Value("${websocket.broker.embedded.data-directory:${java.io.tmpdir}/taskquest-artemis}")
+    private File dataDirectory;
+
+    /**
+     * Bean initialization runs before the relay connects during the lifecycle start.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    EmbeddedActiveMQ embeddedStompBroker() throws Exception {
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setName("taskquest-embedded");
+        // Nachrichten sind flüchtig (Timer-Ticks, Live-Benachrichtigungen), kein Journal nötig
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        configuration.setJMXManagementEnabled(false);
+        configuration.setBrokerInstance(dataDirectory);
+        // /topic/** als Multicast, /queue/** (auch die User-Queues) als Anycast
+        configuration.addAcceptorConfiguration("stomp", "tcp://" + HOST + ":" + port
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        return new EmbeddedActiveMQ().setConfiguration(configuration);
+    }
+}
@@ -0,0 +1,94 @@
+package org.novize.api.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit for concurrent requests, following the gradient algorithm of Netflix' concurrency-limits.
+ * <p>
+ * A long-term average of the response time serves as baseline. While recent responses are as fast as the
+ * baseline the limit grows by roughly its square root; once requests queue up (e.g. for Hikari connections)
+ * and get slower, the limit shrinks proportionally to the slowdown. The limit therefore settles where the
+ * server is busy but not yet queueing.
+ */
+public class GradientConcurrencyLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW = 600;
+    private static final double SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    // Durch synchronized (onSample) geschützt
+    private double longRtt;
+    private double shortRtt;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return true if the request may proceed, {@link #release(long, boolean)} must be called afterwards
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot acquired with {@link #tryAcquire()}.
+     *
+     * @param rttNanos the time the request took
+     * @param sample   whether the request completed normally and its time should adjust the limit
+     */
+    public void release(long rttNanos, boolean sample) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        if (sample) {
+            onSample(rttNanos, inFlightAtEnd);
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtEnd) {
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+            shortRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+
+        // Nach einer längeren Überlastphase ist auch die Basislinie zu hoch, langsam zurückführen
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Kaum ausgelastet: die Messung sagt nichts über die Kapazität, das Limit nicht erhöhen
+        double current = limit;
+        if (inFlightAtEnd < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
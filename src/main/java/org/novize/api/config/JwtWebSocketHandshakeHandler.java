@@ -2,27 +2,31 @@ package org.novize.api.config;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.novize.api.exceptions.UserNotFoundException;
-import org.novize.api.repository.UserRepository;
-import org.novize.api.services.JwtService;
+import org.novize.api.services.WebSocketAuthenticationService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpRequest;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.RequestUpgradeStrategy;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 import java.security.Principal;
-import java.util.Collections;
 import java.util.Map;
 
 @Component
 public class JwtWebSocketHandshakeHandler extends DefaultHandshakeHandler {
-    private final JwtService jwtService;
-    private final UserRepository userRepository; // Annahme, dass Sie einen solchen Repository haben
+    private final WebSocketAuthenticationService webSocketAuthenticationService;
 
-    public JwtWebSocketHandshakeHandler(JwtService jwtService, UserRepository userRepository) {
-        this.jwtService = jwtService;
-        this.userRepository = userRepository;
+    @Autowired
+    public JwtWebSocketHandshakeHandler(WebSocketAuthenticationService webSocketAuthenticationService) {
+        this.webSocketAuthenticationService = webSocketAuthenticationService;
+    }
+
+    protected JwtWebSocketHandshakeHandler(WebSocketAuthenticationService webSocketAuthenticationService,
+                                           RequestUpgradeStrategy requestUpgradeStrategy) {
+        super(requestUpgradeStrategy);
+        this.webSocketAuthenticationService = webSocketAuthenticationService;
     }
 
     @Override
@@ -30,28 +34,14 @@ public class JwtWebSocketHandshakeHandler extends DefaultHandshakeHandler {
         HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
         String token = extractTokenFromRequest(servletRequest);
 
-        // Prüfe, ob Token null oder leer ist, bevor jwtService.extractUsername aufgerufen wird
+        // Prüfe, ob Token null oder leer ist, bevor jwtService.validate aufgerufen wird
         if (token == null || token.isEmpty()) {
             return null;
         }
 
-        String username = jwtService.extractUsername(token);
-
-        // Prüfe, ob Username extrahiert werden konnte
-        if (username == null || username.isEmpty()) {
-            return null;
-        }
-
-        var userdetails = userRepository.findByEmail(username).orElse(null);
-        if (userdetails == null) {
-            throw new UserNotFoundException("User Not Found");
-        }
-
-        if (jwtService.isTokenValid(token, userdetails)) {
-            return new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
-        }
-
-        return null;
+        // Token wird geprüft und der Benutzer geladen, das Ergebnis nutzt auch das folgende CONNECT
+        return webSocketAuthenticationService.authenticate(token)
+                .orElseThrow(() -> new UserNotFoundException("User Not Found"));
     }
 
     private String extractTokenFromRequest(HttpServletRequest request) {
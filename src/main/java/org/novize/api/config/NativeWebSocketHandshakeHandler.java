@@ -0,0 +1,109 @@
+package org.novize.api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Extension;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.novize.api.services.WebSocketAuthenticationService;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.standard.TomcatRequestUpgradeStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Handshake of the native WebSocket endpoint, which decides itself about permessage-deflate.
+ * <p>
+ * Tomcat negotiates every extension the client offers and ignores the selection of the handshake handler, so
+ * the upgrade strategy hands Tomcat the selected extensions as the client's offer. Tomcat only implements
+ * permessage-deflate, which compresses every data frame once negotiated. Without server context
+ * takeover the compressor is reset after each message: a little less compression, but no 32 KB window is kept
+ * per connection between messages.
+ */
+public class NativeWebSocketHandshakeHandler extends JwtWebSocketHandshakeHandler {
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+
+    private final boolean deflateEnabled;
+    private final boolean serverContextTakeover;
+
+    public NativeWebSocketHandshakeHandler(WebSocketAuthenticationService webSocketAuthenticationService,
+                                           boolean deflateEnabled,
+                                           boolean serverContextTakeover) {
+        super(webSocketAuthenticationService, new SelectedExtensionsUpgradeStrategy());
+        this.deflateEnabled = deflateEnabled;
+        this.serverContextTakeover = serverContextTakeover;
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        // Tomcat meldet keine installierten Extensions, permessage-deflate ist aber die einzige, die es kann
+        List<WebSocketExtension> selected = new ArrayList<>();
+        if (deflateEnabled) {
+            for (WebSocketExtension extension : requestedExtensions) {
+                if (PERMESSAGE_DEFLATE.equals(extension.getName())) {
+                    selected.add(serverContextTakeover ? extension : withoutServerContextTakeover(extension));
+                }
+            }
+        }
+        return selected;
+    }
+
+    private static WebSocketExtension withoutServerContextTakeover(WebSocketExtension extension) {
+        Map<String, String> parameters = new LinkedHashMap<>(extension.getParameters());
+        parameters.put(SERVER_NO_CONTEXT_TAKEOVER, "");
+        return new WebSocketExtension(extension.getName(), parameters);
+    }
+
+    /**
+     * Upgrades with the extensions selected by the handshake handler instead of the ones in the request.
+     */
+    private static class SelectedExtensionsUpgradeStrategy extends TomcatRequestUpgradeStrategy {
+        private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+
+        @Override
+        protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                              ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+            String extensions = endpointConfig.getExtensions().stream()
+                    .map(SelectedExtensionsUpgradeStrategy::format)
+                    .collect(Collectors.joining(", "));
+            super.upgradeHttpToWebSocket(new HttpServletRequestWrapper(request) {
+                @Override
+                public String getHeader(String name) {
+                    if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                        return extensions.isEmpty() ? null : extensions;
+                    }
+                    return super.getHeader(name);
+                }
+
+                @Override
+                public Enumeration<String> getHeaders(String name) {
+                    if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                        return extensions.isEmpty() ? Collections.emptyEnumeration() : Collections.enumeration(List.of(extensions));
+                    }
+                    return super.getHeaders(name);
+                }
+            }, response, endpointConfig, pathParams);
+        }
+
+        private static String format(Extension extension) {
+            StringBuilder header = new StringBuilder(extension.getName());
+            for (Extension.Parameter parameter : extension.getParameters()) {
+                header.append(';').append(parameter.getName());
+                if (parameter.getValue() != null && !parameter.getValue().isEmpty()) {
+                    header.append('=').append(parameter.getValue());
+                }
+            }
+            return header.toString();
+        }
+    }
+}
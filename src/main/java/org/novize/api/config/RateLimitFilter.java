@@ -0,0 +1,149 @@
+package org.novize.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.enums.RouteGroup;
+import org.novize.api.exceptions.ServiceUnavailableException;
+import org.novize.api.exceptions.TooManyRequestsException;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects the REST API, and with it the connection pool, from single clients.
+ * <p>
+ * Every user (or client IP for unauthenticated requests) gets one token bucket per {@link RouteGroup}, sized
+ * by {@code rate-limit.<group>.capacity} and {@code rate-limit.<group>.refill-per-second}. An empty bucket
+ * answers 429. Independently, a {@link GradientConcurrencyLimiter} bounds the number of requests in flight
+ * and answers 503 once the server starts queueing. Both carry a Retry-After header.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Map<RouteGroup, Integer> capacities = new EnumMap<>(RouteGroup.class);
+    private final Map<RouteGroup, Double> refillRates = new EnumMap<>(RouteGroup.class);
+    private final Cache<String, TokenBucket> buckets;
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+
+    public RateLimitFilter(HandlerExceptionResolver handlerExceptionResolver,
+                           MeterRegistry meterRegistry,
+                           Environment environment) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("rate-limit.enabled", Boolean.class, true);
+
+        for (RouteGroup group : RouteGroup.values()) {
+            String prefix = "rate-limit." + group.propertyKey();
+            capacities.put(group,
+                    environment.getProperty(prefix + ".capacity", Integer.class, group.getDefaultCapacity()));
+            refillRates.put(group,
+                    environment.getProperty(prefix + ".refill-per-second", Double.class, group.getDefaultRefillPerSecond()));
+        }
+
+        // Ein länger unbenutzter Bucket ist ohnehin wieder voll und kann verworfen werden
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty("rate-limit.buckets.maximum-size", Long.class, 100_000L))
+                .expireAfterAccess(environment.getProperty("rate-limit.buckets.expire-after-access", Duration.class,
+                        Duration.ofMinutes(10)))
+                .build();
+
+        if (environment.getProperty("rate-limit.concurrency.enabled", Boolean.class, true)) {
+            this.concurrencyLimiter = new GradientConcurrencyLimiter(
+                    environment.getProperty("rate-limit.concurrency.initial-limit", Integer.class, 20),
+                    environment.getProperty("rate-limit.concurrency.min-limit", Integer.class, 4),
+                    environment.getProperty("rate-limit.concurrency.max-limit", Integer.class, 200));
+            Gauge.builder("http.server.concurrency.limit", concurrencyLimiter, GradientConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit of concurrent API requests")
+                    .register(meterRegistry);
+            Gauge.builder("http.server.concurrency.in-flight", concurrencyLimiter, GradientConcurrencyLimiter::getInFlight)
+                    .description("API requests currently in flight")
+                    .register(meterRegistry);
+        } else {
+            this.concurrencyLimiter = null;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RouteGroup group = RouteGroup.resolve(request.getRequestURI(), request.getContentType());
+        TokenBucket bucket = buckets.get(group.name() + ':' + clientKey(group, request),
+                key -> new TokenBucket(capacities.get(group), refillRates.get(group)));
+
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos > 0) {
+            meterRegistry.counter("http.server.requests.rejected", "group", group.propertyKey(), "reason", "rate-limit")
+                    .increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new TooManyRequestsException("Rate limit exceeded", retryAfter));
+            return;
+        }
+
+        if (concurrencyLimiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            meterRegistry.counter("http.server.requests.rejected", "group", group.propertyKey(), "reason", "concurrency")
+                    .increment();
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new ServiceUnavailableException("Server is busy, please try again later", 1));
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = response.getStatus() < 500;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, completed);
+        }
+    }
+
+    /**
+     * Authenticated requests are limited per user, everything else (and the login itself) per client IP.
+     * Behind the reverse proxy this is the address resolved from X-Forwarded-For (server.forward-headers-strategy),
+     * the same one the login lockout uses.
+     */
+    private String clientKey(RouteGroup group, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (group != RouteGroup.AUTH && authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                return user.id();
+            }
+            return authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
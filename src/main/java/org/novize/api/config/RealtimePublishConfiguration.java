@@ -0,0 +1,32 @@
+package org.novize.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor that hands WebSocket messages to the broker, so that request and scheduler threads neither wait
+ * for a slow broker nor keep their transaction open meanwhile.
+ */
+@Configuration
+public class RealtimePublishConfiguration {
+
+    @Value("${realtime.publish.threads:4}")
+    private int threads;
+    @Value("${realtime.publish.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Bean
+    ThreadPoolTaskExecutor realtimePublishExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("realtime-publish-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        // Beim Herunterfahren angefangene Sendungen noch abschließen
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        return executor;
+    }
+}
@@ -0,0 +1,15 @@
+package org.novize.api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} jobs: timer ticks, outbox polling, presence heartbeat and retention.
+ * With {@code scheduling.enabled=false} none of them runs, e.g. in tests that count SQL statements.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
@@ -1,86 +1,186 @@
 package org.novize.api.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.novize.api.repository.UserRepository;
-import org.novize.api.services.JwtService;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.novize.api.enums.WireFormat;
+import org.novize.api.services.WebSocketAuthenticationService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Runs for every inbound STOMP frame, so apart from CONNECT and the handling bookkeeping nothing here allocates: the
+ * per-command meters are registered up front and the payload is never decoded unless tracing picked the frame.
+ * <p>
+ * {@code websocket.inbound.frames{command}} counts the frames, {@code websocket.inbound.handling{command}} times
+ * their handling on the inbound channel executor once per frame, from the start of the first handler to the end of
+ * the last one. With {@code websocket.trace.sample-rate} &gt; 0 that share of
+ * SEND frames is logged with destination and the start of the payload.
+ */
 @Component
-public class WebSocketChannelInterceptor implements ChannelInterceptor {
+public class WebSocketChannelInterceptor implements ExecutorChannelInterceptor {
 
     private static final Logger logger = LogManager.getLogger(WebSocketChannelInterceptor.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    // Heartbeats haben kein STOMP-Kommando
+    private static final String HEARTBEAT = "HEARTBEAT";
 
-    @Autowired
-    private JwtService jwtService;
+    private final WebSocketAuthenticationService webSocketAuthenticationService;
+    private final boolean cborEnabled;
+    private final double traceSampleRate;
+    private final int traceMaxPayloadBytes;
 
-    @Autowired
-    private UserRepository userRepository;
+    private final Map<StompCommand, Counter> frames = new EnumMap<>(StompCommand.class);
+    private final Map<StompCommand, Timer> handling = new EnumMap<>(StompCommand.class);
+    private final Counter heartbeatFrames;
+    private final Timer heartbeatHandling;
+    // Laufende Verarbeitung je Frame, jeder Handler des Channels bekommt den Frame als eigenen Executor-Task
+    private final Map<Message<?>, Handling> inFlight = new ConcurrentHashMap<>();
+
+    public WebSocketChannelInterceptor(WebSocketAuthenticationService webSocketAuthenticationService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${websocket.cbor.enabled:false}") boolean cborEnabled,
+                                       @Value("${websocket.trace.sample-rate:0}") double traceSampleRate,
+                                       @Value("${websocket.trace.max-payload-bytes:100}") int traceMaxPayloadBytes) {
+        this.webSocketAuthenticationService = webSocketAuthenticationService;
+        this.cborEnabled = cborEnabled;
+        this.traceSampleRate = traceSampleRate;
+        this.traceMaxPayloadBytes = traceMaxPayloadBytes;
+        for (StompCommand command : StompCommand.values()) {
+            frames.put(command, frameCounter(meterRegistry, command.name()));
+            handling.put(command, handlingTimer(meterRegistry, command.name()));
+        }
+        this.heartbeatFrames = frameCounter(meterRegistry, HEARTBEAT);
+        this.heartbeatHandling = handlingTimer(meterRegistry, HEARTBEAT);
+    }
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == null) {
+            heartbeatFrames.increment();
+            return message;
+        }
+        frames.get(command).increment();
 
-        if (accessor != null) {
-            // Log alle STOMP-Befehle
-            logger.debug("STOMP {} received", accessor.getCommand());
-
-            // Detaillierte Logs je nach Befehl
-            switch (accessor.getCommand()) {
-                case CONNECT:
-                    List<String> authorization = accessor.getNativeHeader("Authorization");
-                    if (authorization != null && !authorization.isEmpty()) {
-                        String token = authorization.get(0).replace("Bearer ", "");
-                        String username = jwtService.extractUsername(token);
-
-                        if (username != null) {
-                            userRepository.findByEmail(username).ifPresent(user -> {
-                                // WICHTIG: Nur den Benutzernamen als Principal verwenden
-                                accessor.setUser(new UsernamePasswordAuthenticationToken(
-                                        username, null, user.getAuthorities()
-                                ));
-                                logger.debug("User authenticated via WebSocket: {}", username);
-                            });
-
-                        }
+        switch (command) {
+            case CONNECT, STOMP -> authenticate(accessor);
+            case SUBSCRIBE -> {
+                if (!cborEnabled || !supportsBinaryFrames(accessor.getSessionAttributes())) {
+                    if (WireFormat.ofDestination(accessor.getDestination()) == WireFormat.CBOR) {
+                        throw new MessageDeliveryException("CBOR destinations are not available for this session");
                     }
-                    break;
-                case SUBSCRIBE:
-                    logger.debug("User subscribed to: {}", accessor.getDestination());
-                    break;
-                case SEND:
-                    // Payload extrahieren und loggen (vorsichtig mit großen Payloads)
-                    Object payload = message.getPayload();
-                    if (payload instanceof byte[]) {
-                        try {
-                            String payloadStr = new String((byte[]) payload, StandardCharsets.UTF_8);
-                            logger.debug("Message sent to {}: {}", accessor.getDestination(),
-                                    payloadStr.length() > 100 ? payloadStr.substring(0, 100) + "..." : payloadStr);
-                        } catch (Exception e) {
-                            logger.debug("Message sent to {} (binary content)", accessor.getDestination());
-                        }
-                    } else {
-                        logger.debug("Message sent to {}: {}", accessor.getDestination(), payload);
-                    }
-                    break;
-                case DISCONNECT:
-                    logger.debug("User disconnected: {}", accessor.getUser());
-                    break;
-                default:
-                    break;
+                }
+            }
+            case SEND -> {
+                if (traceSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSampleRate) {
+                    trace(accessor, message.getPayload());
+                }
+            }
+            default -> {
             }
         }
         return message;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        inFlight.computeIfAbsent(message, m -> new Handling(System.nanoTime(), handlerCount(channel)));
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Handling current = inFlight.get(message);
+        // Erst nach dem letzten Handler messen, sonst zählt jeder Frame so oft wie der Channel Handler hat
+        if (current == null || current.remaining.decrementAndGet() > 0) {
+            return;
+        }
+        inFlight.remove(message);
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return;
+        }
+        StompCommand command = accessor.getCommand();
+        Timer timer = command != null ? handling.get(command) : heartbeatHandling;
+        timer.record(System.nanoTime() - current.start, TimeUnit.NANOSECONDS);
+    }
+
+    private static int handlerCount(MessageChannel channel) {
+        return channel instanceof AbstractSubscribableChannel subscribable
+                ? Math.max(1, subscribable.getSubscribers().size()) : 1;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        // Schon beim Handshake authentifiziert, der Token wird nicht erneut geprüft
+        if (accessor.getUser() != null) {
+            return;
+        }
+        String authorization = accessor.getFirstNativeHeader("Authorization");
+        if (authorization == null || authorization.isEmpty()) {
+            return;
+        }
+        String token = authorization.startsWith(BEARER_PREFIX) ? authorization.substring(BEARER_PREFIX.length()) : authorization;
+        webSocketAuthenticationService.authenticate(token).ifPresent(accessor::setUser);
+    }
+
+    private void trace(StompHeaderAccessor accessor, Object payload) {
+        if (payload instanceof byte[] bytes) {
+            int length = Math.min(bytes.length, traceMaxPayloadBytes);
+            logger.info("SEND {} by {} ({} bytes): {}{}", accessor.getDestination(), accessor.getUser(), bytes.length,
+                    new String(bytes, 0, length, StandardCharsets.UTF_8), length < bytes.length ? "..." : "");
+        } else {
+            logger.info("SEND {} by {}: {}", accessor.getDestination(), accessor.getUser(), payload);
+        }
+    }
+
+    // SockJS-Sessions können keine Binärframes übertragen
+    private static boolean supportsBinaryFrames(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null
+                && Boolean.TRUE.equals(sessionAttributes.get(BinaryFrameDecoratorFactory.BINARY_FRAMES_ATTRIBUTE));
+    }
+
+    private record Handling(long start, AtomicInteger remaining) {
+        Handling(long start, int handlers) {
+            this(start, new AtomicInteger(handlers));
+        }
+    }
+
+    private static Counter frameCounter(MeterRegistry meterRegistry, String command) {
+        return Counter.builder("websocket.inbound.frames")
+                .description("Inbound STOMP frames by command")
+                .tag("command", command)
+                .register(meterRegistry);
+    }
+
+    private static Timer handlingTimer(MeterRegistry meterRegistry, String command) {
+        return Timer.builder("websocket.inbound.handling")
+                .description("Time to handle an inbound STOMP frame on the clientInboundChannel executor")
+                .tag("command", command)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
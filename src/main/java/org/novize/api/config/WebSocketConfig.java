@@ -1,45 +1,188 @@
 package org.novize.api.config;
 
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.services.WebSocketAuthenticationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final String[] ALLOWED_ORIGIN_PATTERNS = {
+            "http://localhost:5173",
+            "http://localhost:3000",
+            "http://192.168.178.61:5173",
+            "http://192.168.178.30:3000"
+    };
 
     @Autowired
     private WebSocketChannelInterceptor webSocketChannelInterceptor;
     @Autowired
     private JwtWebSocketHandshakeHandler handshakeHandler;
+    @Autowired
+    private WebSocketOutboundGuard webSocketOutboundGuard;
+    @Autowired
+    private BinaryFrameDecoratorFactory binaryFrameDecoratorFactory;
+    @Autowired
+    private WebSocketAuthenticationService webSocketAuthenticationService;
+    // Scheduler der Broker-Konfiguration selbst, lazy wegen des Zyklus mit dieser Klasse
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${websocket.broker.mode:simple}")
+    private BrokerMode brokerMode;
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+    @Value("${websocket.broker.relay.client-login:guest}")
+    private String clientLogin;
+    @Value("${websocket.broker.relay.client-passcode:guest}")
+    private String clientPasscode;
+    @Value("${websocket.broker.relay.system-login:guest}")
+    private String systemLogin;
+    @Value("${websocket.broker.relay.system-passcode:guest}")
+    private String systemPasscode;
+    @Value("${websocket.heartbeat.interval:10s}")
+    private Duration heartbeatInterval;
+
+    @Value("${websocket.outbound.virtual-threads:false}")
+    private boolean outboundVirtualThreads;
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.transport.send-time-limit:5s}")
+    private Duration sendTimeLimit;
+    @Value("${websocket.transport.send-buffer-size-limit:256KB}")
+    private DataSize sendBufferSizeLimit;
+    @Value("${websocket.transport.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+
+    @Value("${websocket.cbor.enabled:false}")
+    private boolean cborEnabled;
+
+    @Value("${websocket.native.permessage-deflate.enabled:true}")
+    private boolean nativeDeflateEnabled;
+    @Value("${websocket.native.permessage-deflate.server-context-takeover:true}")
+    private boolean nativeDeflateServerContextTakeover;
 
+    /**
+     * The simple broker keeps subscriptions per JVM. With a relay every instance forwards to the shared broker,
+     * which delivers each message once to whichever instance holds the subscription. The user registry is
+     * broadcast between instances so that {@code convertAndSendToUser} resolves sessions on other nodes too.
+     */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/queue", "/topic");
+        long heartbeat = heartbeatInterval.toMillis();
+        if (brokerMode == BrokerMode.SIMPLE) {
+            var simpleBroker = registry.enableSimpleBroker("/queue", "/topic");
+            if (heartbeat > 0) {
+                // Erkennt tote Verbindungen (z.B. Mobilgeräte im Funkloch), Clients müssen Heartbeats anfordern
+                simpleBroker.setHeartbeatValue(new long[]{heartbeat, heartbeat})
+                        .setTaskScheduler(messageBrokerTaskScheduler);
+            }
+        } else {
+            registry.enableStompBrokerRelay("/queue", "/topic")
+                    .setRelayHost(brokerMode == BrokerMode.EMBEDDED ? EmbeddedBrokerConfiguration.HOST : relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeat)
+                    .setSystemHeartbeatReceiveInterval(heartbeat)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        }
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
 
     }
 
+    /**
+     * Keeps the default converters and adds CBOR, which is only chosen for messages sent with the
+     * {@code application/cbor} content-type.
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        if (cborEnabled) {
+            messageConverters.add(new CborMessageConverter());
+        }
+        return true;
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketChannelInterceptor);
     }
 
+    /**
+     * Writes to client sockets run on this executor. The pool is exposed by Actuator as
+     * {@code executor.*{name=clientOutboundChannelExecutor}}; with virtual threads a blocked socket write
+     * no longer ties up a platform thread.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketOutboundGuard);
+        if (outboundVirtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(outboundCorePoolSize)
+                    .maxPoolSize(outboundMaxPoolSize)
+                    .queueCapacity(outboundQueueCapacity);
+        }
+    }
+
+    /**
+     * A session whose socket write takes longer than the send time limit or whose send buffer overflows is
+     * closed with {@link org.springframework.web.socket.CloseStatus#SESSION_NOT_RELIABLE}.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferSizeLimit.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes())
+                .addDecoratorFactory(webSocketOutboundGuard)
+                .addDecoratorFactory(binaryFrameDecoratorFactory);
+    }
+
 
+    /**
+     * {@code /ws} serves SockJS for clients that cannot open a WebSocket. Capable clients connect to
+     * {@code /ws/native} and skip the SockJS framing; permessage-deflate is only negotiated there if enabled.
+     */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setHandshakeHandler(handshakeHandler)
-                .setAllowedOriginPatterns(
-                        "http://localhost:5173",
-                        "http://localhost:3000",
-                        "http://192.168.178.61:5173",
-                        "http://192.168.178.30:3000")
+                .setAllowedOriginPatterns(ALLOWED_ORIGIN_PATTERNS)
                 .withSockJS();
+        registry.addEndpoint("/ws/native")
+                .setHandshakeHandler(new NativeWebSocketHandshakeHandler(webSocketAuthenticationService,
+                        nativeDeflateEnabled, nativeDeflateServerContextTakeover))
+                .setAllowedOriginPatterns(ALLOWED_ORIGIN_PATTERNS);
     }
 }
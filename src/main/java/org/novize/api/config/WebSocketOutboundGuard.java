@@ -0,0 +1,136 @@
+package org.novize.api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Slow-consumer protection for the client outbound channel.
+ * <p>
+ * Broker messages queued for a session but not yet written to its socket are counted per session. Beyond
+ * {@code websocket.outbound.max-queued-per-session} further MESSAGE frames are dropped instead of piling up
+ * behind a slow mobile client; the transport's send limits close sessions that still fall behind. Queue depth,
+ * dropped frames and slow-consumer disconnects are exposed as metrics.
+ */
+@Component
+public class WebSocketOutboundGuard implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+    private static final Logger logger = LogManager.getLogger(WebSocketOutboundGuard.class);
+
+    private final int maxQueuedPerSession;
+    // Session-ID -> Frames im Outbound-Kanal, die noch nicht an den Socket übergeben wurden
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+
+    private final DistributionSummary queueDepth;
+    private final Counter droppedFrames;
+    private final Counter slowConsumerDisconnects;
+
+    public WebSocketOutboundGuard(@Value("${websocket.outbound.max-queued-per-session:100}") int maxQueuedPerSession,
+                                  MeterRegistry meterRegistry) {
+        this.maxQueuedPerSession = maxQueuedPerSession;
+        this.queueDepth = DistributionSummary.builder("websocket.outbound.session.queue")
+                .description("Frames queued for a session when a new broker message is added")
+                .register(meterRegistry);
+        this.droppedFrames = Counter.builder("websocket.outbound.dropped")
+                .description("Broker messages dropped because the session queue was full")
+                .register(meterRegistry);
+        this.slowConsumerDisconnects = Counter.builder("websocket.sessions.slow-consumer")
+                .description("Sessions closed because they exceeded the send time or buffer limit")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.session.queue.max", pending,
+                        map -> map.values().stream().mapToInt(Integer::intValue).max().orElse(0))
+                .description("Deepest per-session queue")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = brokerMessageSessionId(message);
+        if (sessionId == null) {
+            return message;
+        }
+        int queued = pending.merge(sessionId, 1, Integer::sum);
+        if (queued > maxQueuedPerSession) {
+            release(sessionId);
+            droppedFrames.increment();
+            logger.debug("Dropping frame for slow session {}, {} frames queued", sessionId, queued - 1);
+            return null;
+        }
+        queueDepth.record(queued);
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Vom Executor abgelehnt: wird nie behandelt, also hier wieder abziehen
+        if (ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                pending.remove(session.getId());
+                // SESSION_NOT_RELIABLE: Sendezeit- oder Pufferlimit überschritten
+                if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    slowConsumerDisconnects.increment();
+                    logger.info("Closed slow WebSocket session {}: {}", session.getId(), closeStatus.getReason());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * @return the number of frames currently queued for a session
+     */
+    public int getQueued(String sessionId) {
+        return pending.getOrDefault(sessionId, 0);
+    }
+
+    private void release(Message<?> message) {
+        String sessionId = brokerMessageSessionId(message);
+        if (sessionId != null) {
+            release(sessionId);
+        }
+    }
+
+    private void release(String sessionId) {
+        // Eintrag entfernen, sobald die Session nichts mehr in der Warteschlange hat
+        pending.computeIfPresent(sessionId, (id, depth) -> depth > 1 ? depth - 1 : null);
+    }
+
+    // Nur Broker-Nachrichten (MESSAGE-Frames) zählen, CONNECTED/RECEIPT/ERROR werden nie verworfen
+    private static String brokerMessageSessionId(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+}
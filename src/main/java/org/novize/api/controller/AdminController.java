@@ -1,14 +1,15 @@
 package org.novize.api.controller;
 
+import org.novize.api.dtos.auth.LoginAttemptDto;
 import org.novize.api.dtos.auth.RegisterUserDto;
 import org.novize.api.model.User;
+import org.novize.api.services.LoginAttemptService;
 import org.novize.api.services.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
 
 
 /**
@@ -19,9 +20,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class AdminController {
     private final UserService userService;
+    private final LoginAttemptService loginAttemptService;
 
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService, LoginAttemptService loginAttemptService) {
         this.userService = userService;
+        this.loginAttemptService = loginAttemptService;
     }
 
     /**
@@ -36,4 +39,27 @@ public class AdminController {
 
         return ResponseEntity.ok(createdAdmin);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint to inspect the login throttling counters.
+     * @return The tracked usernames and client IPs, blocked ones first.
+     */
+    @GetMapping("/login-attempts")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<List<LoginAttemptDto>> getLoginAttempts() {
+        return ResponseEntity.ok(loginAttemptService.getAttempts());
+    }
+
+    /**
+     * Endpoint to lift a login block early.
+     * @param key The tracked key, e.g. {@code user:jane@example.com} or {@code ip:10.0.0.1}.
+     * @return 204 if the key was reset, 404 if it was not tracked.
+     */
+    @DeleteMapping("/login-attempts/{key}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<Void> resetLoginAttempts(@PathVariable String key) {
+        return loginAttemptService.reset(key)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
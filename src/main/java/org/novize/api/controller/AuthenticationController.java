@@ -1,18 +1,23 @@
 package org.novize.api.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.novize.api.dtos.auth.*;
 import org.novize.api.dtos.user.UserDto;
+import org.novize.api.exceptions.TokenRefreshException;
 import org.novize.api.model.RefreshToken;
 import org.novize.api.model.User;
 import org.novize.api.services.AuthenticationService;
 import org.novize.api.services.JwtService;
+import org.novize.api.services.LoginAttemptService;
 import org.novize.api.services.RefreshTokenService;
+import org.novize.api.services.SecurityStampService;
 import org.novize.api.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -29,16 +34,22 @@ public class AuthenticationController {
     private final AuthenticationService authenticationService;
     private final UserService userService;
     private final RefreshTokenService refreshTokenService;
+    private final SecurityStampService securityStampService;
+    private final LoginAttemptService loginAttemptService;
 
     public AuthenticationController(
             JwtService jwtService,
             AuthenticationService authenticationService,
             UserService userService,
-            RefreshTokenService refreshTokenService) {
+            RefreshTokenService refreshTokenService,
+            SecurityStampService securityStampService,
+            LoginAttemptService loginAttemptService) {
         this.jwtService = jwtService;
         this.authenticationService = authenticationService;
         this.userService = userService;
         this.refreshTokenService = refreshTokenService;
+        this.securityStampService = securityStampService;
+        this.loginAttemptService = loginAttemptService;
     }
 
     @PostMapping("/signup")
@@ -49,27 +60,21 @@ public class AuthenticationController {
 
     @PostMapping("/refresh")
     public ResponseEntity<AuthenticationResponse> refresh(@RequestBody RefreshRequestDto refreshRequestDto) {
-        logger.info("Received refresh token: {}", refreshRequestDto.getToken());
         String requestToken = refreshRequestDto.getToken();
 
-        // Suche den Refresh-Token in der Datenbank
-        Optional<RefreshToken> refreshTokenOptional = refreshTokenService.findByToken(requestToken);
-
-        if (refreshTokenOptional.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-
-        // Verifiziere, dass der Token nicht abgelaufen ist
-        RefreshToken refreshToken;
+        // Suche den Refresh-Token (Cache, sonst ein Index-Zugriff) und verifiziere den Ablauf
+        Optional<User> userOptional;
         try {
-            refreshToken = refreshTokenService.verifyExpiration(refreshTokenOptional.get());
-        } catch (RuntimeException e) {
+            userOptional = refreshTokenService.findUserByValidToken(requestToken);
+        } catch (TokenRefreshException e) {
             logger.error("Refresh token ist abgelaufen: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        // Hole den Benutzer aus dem Token
-        User user = refreshToken.getUser();
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userOptional.get();
 
         // Generiere ein neues Access-Token
         String newAccessToken = jwtService.generateToken(user);
@@ -85,18 +90,27 @@ public class AuthenticationController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody @Valid LoginUserDto loginUserDto) {
-        User authenticatedUser = authenticationService.authenticate(loginUserDto);
+    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody @Valid LoginUserDto loginUserDto,
+                                                               HttpServletRequest request) {
+        // Gesperrte Benutzer/IPs abweisen, bevor BCrypt läuft.
+        // Client-IP aus X-Forwarded-For des Reverse-Proxys (server.forward-headers-strategy), nicht die des Proxys
+        String clientIp = request.getRemoteAddr();
+        loginAttemptService.checkAllowed(loginUserDto.getEmail(), clientIp);
+
+        User authenticatedUser;
+        try {
+            authenticatedUser = authenticationService.authenticate(loginUserDto);
+        } catch (AuthenticationException e) {
+            loginAttemptService.loginFailed(loginUserDto.getEmail(), clientIp);
+            throw e;
+        }
+        loginAttemptService.loginSucceeded(loginUserDto.getEmail());
 
         // Generiere ein neues Access-Token
         String jwtToken = jwtService.generateToken(authenticatedUser);
 
-        // Lösche vorhandene Refresh-Tokens des Benutzers
-        refreshTokenService.deleteByUserId(authenticatedUser.getId());
-
-
-        // Erstelle einen neuen Refresh-Token
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(authenticatedUser.getUsername());
+        // Ersetze den Refresh-Token des Benutzers (ein UPDATE, beim ersten Login ein INSERT)
+        RefreshToken refreshToken = refreshTokenService.rotateRefreshToken(authenticatedUser);
 
         AuthenticationResponse authenticationResponse = AuthenticationResponse.builder()
                 .token(jwtToken)
@@ -111,10 +125,13 @@ public class AuthenticationController {
     @PostMapping("/logout")
     public ResponseEntity<Void> logout(@RequestBody @Valid LogoutRequestDto logoutRequestDto) {
         String token = logoutRequestDto.getToken();
-        Optional<RefreshToken> refreshTokenOptional = refreshTokenService.findByToken(token);
+        Optional<String> userIdOptional = refreshTokenService.findUserIdByToken(token);
 
-        if (refreshTokenOptional.isPresent()) {
-            refreshTokenService.deleteByUserId(refreshTokenOptional.get().getUser().getId());
+        if (userIdOptional.isPresent()) {
+            String userId = userIdOptional.get();
+            refreshTokenService.deleteByUserId(userId);
+            // Bereits ausgestellte Access-Tokens sofort ungültig machen
+            securityStampService.revoke(userId);
             return ResponseEntity.ok().build();
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
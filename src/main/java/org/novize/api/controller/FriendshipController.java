@@ -1,5 +1,6 @@
 package org.novize.api.controller;
 
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.model.Friendship;
 import org.novize.api.model.User;
 import org.novize.api.services.FriendshipServiceImpl;
@@ -26,22 +27,27 @@ public class FriendshipController {
     private UserService userService;
 
     @GetMapping("/pending")
-    public List<Friendship> getPendingFriendRequests(@AuthenticationPrincipal User user) {
+    public List<Friendship> getPendingFriendRequests(@AuthenticationPrincipal AuthenticatedUser user) {
         // Logik, um die ausstehenden Freundschaftsanfragen zu holen
-        return friendshipServiceImpl.getPendingFriendRequests(user);
+        return friendshipServiceImpl.getPendingFriendRequests(userService.getReference(user.id()));
     }
     @GetMapping("/friends")
-    public List<Friendship> getFriends(@AuthenticationPrincipal User user) {
+    public List<Friendship> getFriends(@AuthenticationPrincipal AuthenticatedUser user) {
         // Logik, um die Freunde des Benutzers zu holen
-        return friendshipServiceImpl.getFriendshipsByUser(user);
+        return friendshipServiceImpl.getFriendshipsByUser(userService.getReference(user.id()));
+    }
+    @GetMapping("/online")
+    public List<Friendship> getOnlineFriends(@AuthenticationPrincipal AuthenticatedUser user) {
+        // Freunde mit aktiver WebSocket-Verbindung
+        return friendshipServiceImpl.getOnlineFriends(userService.getReference(user.id()));
     }
 
     @PostMapping("/send")
     @PreAuthorize("isAuthenticated()")
-    public void sendFriendRequest(@AuthenticationPrincipal User sender, @RequestParam String receiverMail) {
-        // Logik, um den Empfänger zu finden und die Anfrage zu senden
+    public void sendFriendRequest(@AuthenticationPrincipal AuthenticatedUser sender, @RequestParam String receiverMail) {
+        // Logik, um den Empfänger zu finden und die Anfrage zu senden, der Absender wird für die Benachrichtigung geladen
        User receiver = userService.findUserByEmail(receiverMail);
-       friendshipServiceImpl.sendFriendRequest(sender, receiver);
+       friendshipServiceImpl.sendFriendRequest(userService.findUserByEmail(sender.username()), receiver);
 
     }
 
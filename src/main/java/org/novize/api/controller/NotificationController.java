@@ -1,14 +1,16 @@
 package org.novize.api.controller;
 
-import org.novize.api.dtos.NotificationDto;
-import org.novize.api.model.Notification;
-import org.novize.api.model.User;
+import jakarta.servlet.http.HttpServletResponse;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.mapper.JsonArrayWriter;
+import org.novize.api.mapper.NotificationMapper;
 import org.novize.api.services.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -17,9 +19,17 @@ public class NotificationController {
     @Autowired
     NotificationService notificationService;
 
-    @GetMapping
-    public List<NotificationDto> getNotifications(@AuthenticationPrincipal User user) {
-        return notificationService.getUnreadNotifications(user);
+    @Autowired
+    NotificationMapper notificationMapper;
+
+    @Autowired
+    JsonArrayWriter jsonArrayWriter;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getNotifications(@AuthenticationPrincipal AuthenticatedUser user, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonArrayWriter.write((last, chunk) -> notificationService.findUnreadNotificationChunk(user, last, chunk),
+                notificationMapper::toDto, response.getOutputStream());
     }
 
     @PostMapping("/{notificationId}/read")
@@ -28,12 +38,12 @@ public class NotificationController {
     }
 
     @PostMapping("/read-all")
-    public void markAllAsRead(@AuthenticationPrincipal User user) {
+    public void markAllAsRead(@AuthenticationPrincipal AuthenticatedUser user) {
         notificationService.markAllAsRead(user);
     }
 
     @DeleteMapping("/{notificationId}")
-    public void deleteNotification(@AuthenticationPrincipal User user, @PathVariable String notificationId) {
+    public void deleteNotification(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable String notificationId) {
         notificationService.deleteNotification(notificationId);
     }
 }
\ No newline at end of file
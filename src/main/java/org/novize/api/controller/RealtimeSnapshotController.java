@@ -0,0 +1,41 @@
+package org.novize.api.controller;
+
+import org.novize.api.dtos.NotificationBacklogDto;
+import org.novize.api.dtos.RealtimeSnapshotDto;
+import org.novize.api.services.ActiveTimerCache;
+import org.novize.api.services.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Replaces {@code GET /api/tasks} and {@code GET /api/notifications} after a (re)connect: subscribing to
+ * {@code /app/snapshot} answers once, directly to the session, with the user's running timers and unread
+ * notifications. Both come from memory, see {@link ActiveTimerCache} and {@link NotificationService#getBacklog(String)}.
+ * Updates then arrive on {@code /topic/task/{id}/timer} and {@code /user/queue/notifications}.
+ */
+@Controller
+public class RealtimeSnapshotController {
+
+    @Autowired
+    ActiveTimerCache activeTimerCache;
+
+    @Autowired
+    NotificationService notificationService;
+
+    @SubscribeMapping("/snapshot")
+    public RealtimeSnapshotDto snapshot(Principal principal) {
+        if (principal == null) {
+            throw new AccessDeniedException("Nicht authentifiziert");
+        }
+        NotificationBacklogDto backlog = notificationService.getBacklog(principal.getName());
+        return new RealtimeSnapshotDto(
+                activeTimerCache.activeTimers(principal.getName()),
+                backlog != null ? backlog.getUnreadCount() : 0L,
+                backlog != null ? backlog.getNotifications() : List.of());
+    }
+}
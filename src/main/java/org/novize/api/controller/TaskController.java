@@ -1,22 +1,29 @@
 package org.novize.api.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.*;
 import org.novize.api.dtos.timer.TimerUpdateDto;
 import org.novize.api.enums.Relation;
+import org.novize.api.enums.TaskField;
+import org.novize.api.mapper.JsonArrayWriter;
+import org.novize.api.mapper.TaskJsonFragmentCache;
 import org.novize.api.mapper.TaskMapper;
 import org.novize.api.model.Task;
-import org.novize.api.model.User;
 import org.novize.api.services.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -35,6 +42,12 @@ public class TaskController {
     @Autowired
     private TaskMapper taskMapper;
 
+    @Autowired
+    private TaskJsonFragmentCache taskJsonFragmentCache;
+
+    @Autowired
+    private JsonArrayWriter jsonArrayWriter;
+
     @GetMapping("{id}")
     public TaskDto getById(@PathVariable String id) {
 
@@ -44,20 +57,36 @@ public class TaskController {
 
     /**
      * Endpoint to get all tasks for the authenticated user
-     * @return List of TaskDto objects
+     * The List of TaskDto objects is written directly to the response.
      */
-    @GetMapping("")
+    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    @Transactional
-    public ResponseEntity<List<TaskDto>> getAllTasks(
-            @AuthenticationPrincipal User currentUser,
-            @RequestParam(required = false) Relation relation) {
-
-        List<TaskDto> taskDtos;
-
-        taskDtos = taskService.getTasksByUserAndRelation(currentUser, relation);
+    public void getAllTasks(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam(required = false) Relation relation,
+            HttpServletResponse response) throws IOException {
+
+        // Tasks werden blockweise geladen und geschrieben, unveränderte Tasks kommen aus dem Fragment-Cache
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonArrayWriter.<Task>writeRaw(
+                (last, chunk) -> taskService.findTaskChunkByUserAndRelation(currentUser, relation, last, chunk),
+                task -> taskJsonFragmentCache.getFragment(task, currentUser), response.getOutputStream());
+    }
 
-        return ResponseEntity.ok(taskDtos);
+    /**
+     * Endpoint to get lean task summaries for the authenticated user, e.g. {@code ?fields=id,name,dueDate}.
+     * Available fields are id, name, urgency, dueDate, completed and sharedWith.
+     *
+     * @param fields comma separated list of fields to include, empty for all fields except sharedWith
+     * @return List of TaskSummaryDto objects containing only the requested fields
+     */
+    @GetMapping(value = "", params = "fields")
+    @PreAuthorize("isAuthenticated()")
+    public List<TaskSummaryDto> getAllTaskSummaries(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam(required = false) Relation relation,
+            @RequestParam String fields) {
+        return taskService.getTaskSummariesByUserAndRelation(currentUser, relation, TaskField.parse(fields));
     }
 
 
@@ -80,7 +109,7 @@ public class TaskController {
     @PostMapping("/complete/{id}")
     @PreAuthorize("isAuthenticated()")
     @Transactional
-    public TaskDto toggleComplete(@AuthenticationPrincipal User currentUser, @PathVariable String id) {
+    public TaskDto toggleComplete(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable String id) {
         Task task = taskService.toggleCompleted(id);
         return taskMapper.toDto(task, currentUser);
     }
@@ -92,7 +121,7 @@ public class TaskController {
     public TaskDto shareTask(
             @PathVariable String id,
             @RequestBody ShareTaskDto shareTaskDto,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         Task task = taskService.manageTaskSharing(id, shareTaskDto.getUsername(), currentUser, true);
         return taskMapper.toDto(task, currentUser);
     }
@@ -103,17 +132,28 @@ public class TaskController {
     public ResponseEntity<TaskDto> unshareTask(
             @PathVariable String id,
             @PathVariable String username,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         Task task = taskService.manageTaskSharing(id, username, currentUser, false);
         return ResponseEntity.ok(taskMapper.toDto(task, currentUser));
     }
 
-    @GetMapping("/shared")
+    @GetMapping(value = "/shared", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    @Transactional
-    public List<TaskDto> getSharedTasks(
-            @AuthenticationPrincipal User currentUser) {
-       return taskService.getTasksByUserAndRelation(currentUser, Relation.SHARED);
+    public void getSharedTasks(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonArrayWriter.<Task>writeRaw(
+                (last, chunk) -> taskService.findTaskChunkByUserAndRelation(currentUser, Relation.SHARED, last, chunk),
+                task -> taskJsonFragmentCache.getFragment(task, currentUser), response.getOutputStream());
+    }
+
+    @GetMapping(value = "/shared", params = "fields")
+    @PreAuthorize("isAuthenticated()")
+    public List<TaskSummaryDto> getSharedTaskSummaries(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam String fields) {
+        return taskService.getTaskSummariesByUserAndRelation(currentUser, Relation.SHARED, TaskField.parse(fields));
     }
 
 
@@ -124,18 +164,41 @@ public class TaskController {
      * @param query an optional search query to filter tasks; can be null to fetch all tasks
      * @param page the zero-based page number of the paginated result set
      * @param size the number of tasks to include on each page
-     * @return a TaskListDto object containing a list of tasks, total pages, and task count
+     * @param response the response the TaskListDto JSON (list of tasks, total pages, and task count) is written to
      */
-    @GetMapping("/search")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    @Transactional
-    public TaskListDto getTaskByName(
-            @AuthenticationPrincipal User currentUser,
+    public void getTaskByName(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam(required = false) String query,
+            @RequestParam int page,
+            @RequestParam int size,
+            HttpServletResponse response
+    ) throws IOException {
+        // Die Seite wird in der Service-Transaktion geladen, geschrieben wird erst nach dem Commit
+        Page<Task> tasks = taskService.findByName(query, page, size, currentUser);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        taskJsonFragmentCache.writeList(tasks.getContent(), tasks.getTotalPages(), tasks.getTotalElements(),
+                currentUser, response.getOutputStream());
+    }
+
+    /**
+     * Lean variant of {@link #getTaskByName} that only returns the requested fields of each task.
+     *
+     * @param fields comma separated list of fields to include, empty for all fields except sharedWith
+     * @return a TaskSummaryListDto object containing the task summaries, total pages, and task count
+     */
+    @GetMapping(value = "/search", params = "fields")
+    @PreAuthorize("isAuthenticated()")
+    public TaskSummaryListDto getTaskSummariesByName(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @RequestParam(required = false) String query,
             @RequestParam int page,
-            @RequestParam int size
+            @RequestParam int size,
+            @RequestParam String fields
     ) {
-        return taskService.search(query, page, size, currentUser);
+        return taskService.searchSummaries(query, page, size, currentUser, TaskField.parse(fields));
     }
 
     /**
@@ -151,7 +214,7 @@ public class TaskController {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public TaskDto startTimer(
-            @AuthenticationPrincipal User currentUser,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable String id) {
         return taskService.startTimer(id, currentUser);
     }
@@ -170,7 +233,7 @@ public class TaskController {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public TaskDto pauseTimer(
-            @AuthenticationPrincipal User currentUser,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable String id) {
         return taskService.pauseTimer(id, currentUser);
     }
@@ -189,7 +252,7 @@ public class TaskController {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public TaskDto resetTimer(
-            @AuthenticationPrincipal User currentUser,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable String id) {
         return taskService.resetTimer(id, currentUser);
     }
@@ -209,7 +272,7 @@ public class TaskController {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public TaskDto updateTimer(
-            @AuthenticationPrincipal User currentUser,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable String id,
             @RequestBody TimerUpdateDto timerUpdateDto) {
         return taskService.updateTimer(id, timerUpdateDto, currentUser);
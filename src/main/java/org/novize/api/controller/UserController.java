@@ -1,15 +1,17 @@
 package org.novize.api.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.novize.api.dtos.user.UserDto;
+import org.novize.api.mapper.JsonArrayWriter;
 import org.novize.api.model.User;
 import org.novize.api.services.UserService;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.function.Function;
 
 /**
  * Controller for handling user-related requests.
@@ -20,9 +22,11 @@ import java.util.List;
 @RestController
 public class UserController {
     private final UserService userService;
+    private final JsonArrayWriter jsonArrayWriter;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JsonArrayWriter jsonArrayWriter) {
         this.userService = userService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     /**
@@ -31,10 +35,7 @@ public class UserController {
      */
     @GetMapping("/me")
     @PreAuthorize("isAuthenticated()")
-    public UserDto authenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        User currentUser = (User) authentication.getPrincipal();
+    public UserDto authenticatedUser(@AuthenticationPrincipal User currentUser) {
         // Map the User object to UserDto
 
         return UserDto.builder()
@@ -51,14 +52,13 @@ public class UserController {
 
     /**
      * Endpoint to get all users.
-     * @return A list of all users.
+     * The list of all users is streamed to the response, one user at a time.
      */
-    @GetMapping("/all")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<User>> allUsers() {
-        List <User> users = userService.allUsers();
-
-        return ResponseEntity.ok(users);
+    public void allUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonArrayWriter.write(userService::findUserChunk, Function.identity(), response.getOutputStream());
     }
 
 
@@ -0,0 +1,19 @@
+package org.novize.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Unread notifications sent once per connection on {@code /user/queue/notifications/backlog}.
+ * {@code notifications} holds the newest ones without recipient, {@code unreadCount} the total.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationBacklogDto {
+    private long unreadCount;
+    private List<NotificationDto> notifications;
+}
@@ -0,0 +1,21 @@
+package org.novize.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.novize.api.dtos.timer.ActiveTimerDto;
+
+import java.util.List;
+
+/**
+ * State a client needs after (re)connecting, answered once on a subscription to {@code /app/snapshot}:
+ * the running timers the user can see and the unread notifications as in {@link NotificationBacklogDto}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RealtimeSnapshotDto {
+    private List<ActiveTimerDto> timers;
+    private long unreadCount;
+    private List<NotificationDto> notifications;
+}
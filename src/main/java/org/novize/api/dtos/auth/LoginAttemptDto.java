@@ -0,0 +1,24 @@
+package org.novize.api.dtos.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Current login throttling state of a username or client IP.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginAttemptDto {
+    private String key;
+    // Gewichtete Anzahl der Fehlversuche im gleitenden Fenster
+    private double failures;
+    // Wie oft das Limit bereits überschritten wurde, bestimmt die Sperrdauer
+    private int strikes;
+    private Instant blockedUntil;
+}
@@ -0,0 +1,56 @@
+package org.novize.api.dtos.task;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.novize.api.dtos.user.UserDto;
+import org.novize.api.enums.TaskField;
+import org.novize.api.enums.Urgency;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lean representation of a task for list views. Instances are created directly by JPQL constructor
+ * projections in {@link org.novize.api.repository.TaskRepository}, so only the listed columns are selected.
+ * Fields that were not requested stay {@code null} and are omitted from the JSON output.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskSummaryDto {
+    private String id;
+    private String name;
+    private Urgency urgency;
+    private LocalDateTime dueDate;
+    private Boolean completed;
+    // Benutzer, mit denen der Task geteilt ist, gleiche Form wie TaskDto.sharedWith, nur auf Anfrage geladen
+    private List<UserDto> sharedWith;
+
+    public TaskSummaryDto(String id, String name, Urgency urgency, LocalDateTime dueDate, Boolean completed) {
+        this.id = id;
+        this.name = name;
+        this.urgency = urgency;
+        this.dueDate = dueDate;
+        this.completed = completed;
+    }
+
+    /**
+     * Removes all fields that are not part of the requested fieldset.
+     *
+     * @param fields the requested fields
+     * @return this instance
+     */
+    public TaskSummaryDto retain(Set<TaskField> fields) {
+        if (!fields.contains(TaskField.ID)) id = null;
+        if (!fields.contains(TaskField.NAME)) name = null;
+        if (!fields.contains(TaskField.URGENCY)) urgency = null;
+        if (!fields.contains(TaskField.DUE_DATE)) dueDate = null;
+        if (!fields.contains(TaskField.COMPLETED)) completed = null;
+        if (!fields.contains(TaskField.SHARED_WITH)) sharedWith = null;
+        return this;
+    }
+}
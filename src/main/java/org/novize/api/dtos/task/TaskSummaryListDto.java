@@ -0,0 +1,14 @@
+package org.novize.api.dtos.task;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TaskSummaryListDto {
+    private List<TaskSummaryDto> tasks;
+    private int pages;
+    private Long count;
+}
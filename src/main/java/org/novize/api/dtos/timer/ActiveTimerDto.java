@@ -0,0 +1,16 @@
+package org.novize.api.dtos.timer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A running timer in the {@link org.novize.api.dtos.RealtimeSnapshotDto}, the remaining time as of sending.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActiveTimerDto {
+    private String taskId;
+    private Long remainingTimeMillis;
+}
@@ -0,0 +1,29 @@
+package org.novize.api.dtos.timer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Delta-encoded timer frame for the {@code /topic/task/{id}/timer.cbor} destination.
+ * Fields that did not change since the previous frame are {@code null} and therefore not serialized;
+ * a keyframe ({@code k = true}) carries every field.
+ * <p>
+ * Every frame carries the task's sequence number {@code s}, a delta continues the frame with {@code s - 1}.
+ * A client that missed that frame (dropped, or sent by another instance) ignores deltas until the next keyframe.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimerDeltaDto {
+    // Kurze Feldnamen, die Namen stehen in jedem CBOR-Frame
+    @JsonProperty("k")
+    private Boolean keyframe;
+    @JsonProperty("r")
+    private Long remainingTimeMillis;
+    @JsonProperty("a")
+    private Boolean timerActive;
+    @JsonProperty("s")
+    private Integer sequence;
+}
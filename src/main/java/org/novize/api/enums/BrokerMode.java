@@ -0,0 +1,13 @@
+package org.novize.api.enums;
+
+/**
+ * Where STOMP destinations are handled, see {@code websocket.broker.mode}.
+ */
+public enum BrokerMode {
+    // In-Memory-Broker pro JVM, nur für eine einzelne Instanz geeignet
+    SIMPLE,
+    // Externer STOMP-Broker (z.B. RabbitMQ oder Artemis), alle Instanzen teilen sich Subscriptions
+    RELAY,
+    // Wie RELAY, aber mit einem im Prozess gestarteten Artemis-Broker
+    EMBEDDED
+}
@@ -0,0 +1,9 @@
+package org.novize.api.enums;
+
+/**
+ * Kinds of messages written to the outbox, each one is published by its own handler in the dispatcher.
+ */
+public enum OutboxEventType {
+    // Payload: NotificationDto, Empfänger: E-Mail des Benutzers
+    USER_NOTIFICATION
+}
@@ -0,0 +1,57 @@
+package org.novize.api.enums;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Route classes of the REST API with their own rate limits, see {@code rate-limit.<group>.*}.
+ */
+@Getter
+public enum RouteGroup {
+    AUTH(20, 2),
+    TIMER(10, 2),
+    SEARCH(20, 5),
+    UPLOAD(5, 0.2),
+    DEFAULT(100, 20);
+
+    // Burst: so viele Requests dürfen direkt hintereinander kommen
+    private final int defaultCapacity;
+    // Dauerhafte Rate, mit der der Bucket wieder aufgefüllt wird
+    private final double defaultRefillPerSecond;
+
+    RouteGroup(int defaultCapacity, double defaultRefillPerSecond) {
+        this.defaultCapacity = defaultCapacity;
+        this.defaultRefillPerSecond = defaultRefillPerSecond;
+    }
+
+    /**
+     * @return the name used in the configuration properties, e.g. {@code timer}
+     */
+    public String propertyKey() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Classifies a request.
+     *
+     * @param path        the request path
+     * @param contentType the content type of the request, may be null
+     * @return the route group of the request
+     */
+    public static RouteGroup resolve(String path, String contentType) {
+        if (path.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/api/uploads") || (contentType != null && contentType.startsWith("multipart/"))) {
+            return UPLOAD;
+        }
+        if (path.startsWith("/api/tasks/") && path.contains("/timer/")) {
+            return TIMER;
+        }
+        if (path.endsWith("/search")) {
+            return SEARCH;
+        }
+        return DEFAULT;
+    }
+}
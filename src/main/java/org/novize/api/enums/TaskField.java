@@ -0,0 +1,59 @@
+package org.novize.api.enums;
+
+import org.novize.api.exceptions.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Represents the fields of a task that can be requested via the {@code fields} query parameter
+ * of the task list endpoints (sparse fieldsets).
+ * SHARED_WITH is the only field that needs an additional query and is therefore never part of the defaults.
+ */
+public enum TaskField {
+    ID("id"),
+    NAME("name"),
+    URGENCY("urgency"),
+    DUE_DATE("dueDate"),
+    COMPLETED("completed"),
+    SHARED_WITH("sharedWith");
+
+    private final String jsonName;
+
+    TaskField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Parses a comma separated list of field names, e.g. {@code id,name,dueDate}.
+     * An empty list selects all fields except {@link #SHARED_WITH}.
+     *
+     * @param fields the value of the {@code fields} query parameter
+     * @return the requested fields
+     * @throws InvalidRequestException if an unknown field name is requested
+     */
+    public static Set<TaskField> parse(String fields) {
+        Set<TaskField> result = EnumSet.noneOf(TaskField.class);
+        if (fields != null) {
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                result.add(Arrays.stream(values())
+                        .filter(field -> field.jsonName.equals(trimmed))
+                        .findFirst()
+                        .orElseThrow(() -> new InvalidRequestException("Unbekanntes Feld: " + trimmed)));
+            }
+        }
+        if (result.isEmpty()) {
+            result = EnumSet.complementOf(EnumSet.of(SHARED_WITH));
+        }
+        return result;
+    }
+}
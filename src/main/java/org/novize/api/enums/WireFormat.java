@@ -0,0 +1,61 @@
+package org.novize.api.enums;
+
+import lombok.Getter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+
+/**
+ * Payload encodings for STOMP frames. A client opts into a format by subscribing to the destination with the
+ * format's suffix, e.g. {@code /topic/task/{id}/timer.cbor}; every frame carries the matching content-type.
+ */
+@Getter
+public enum WireFormat {
+    JSON(MimeTypeUtils.APPLICATION_JSON, ""),
+    CBOR(new MimeType("application", "cbor"), ".cbor");
+
+    private final MimeType mimeType;
+    private final String destinationSuffix;
+
+    WireFormat(MimeType mimeType, String destinationSuffix) {
+        this.mimeType = mimeType;
+        this.destinationSuffix = destinationSuffix;
+    }
+
+    /**
+     * @return the destination clients of this format subscribe to
+     */
+    public String destination(String baseDestination) {
+        return baseDestination + destinationSuffix;
+    }
+
+    /**
+     * Headers for {@code SimpMessagingTemplate.convertAndSend}, the content-type selects the message converter.
+     * A new instance is needed per send because the template completes the headers in place.
+     */
+    public MessageHeaders messageHeaders() {
+        return messageHeaders(Map.of());
+    }
+
+    /**
+     * Like {@link #messageHeaders()}, the native headers are sent to the client as STOMP headers.
+     */
+    public MessageHeaders messageHeaders(Map<String, String> nativeHeaders) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(mimeType);
+        nativeHeaders.forEach(accessor::setNativeHeader);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    /**
+     * @return the format a subscription destination asks for
+     */
+    public static WireFormat ofDestination(String destination) {
+        return destination != null && destination.endsWith(CBOR.destinationSuffix) ? CBOR : JSON;
+    }
+}
@@ -5,7 +5,9 @@ import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.xml.bind.ValidationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -162,6 +164,48 @@ public class GlobalExceptionHandler {
                 request.getDescription(false));
     }
 
+    /**
+     * Handles TooManyRequestsException and returns a 429 Too Many Requests response
+     * with a Retry-After header.
+     *
+     * @param ex The exception that was thrown.
+     * @return A ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorMessage> handleTooManyRequestsException(TooManyRequestsException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ErrorMessage
+                        .builder()
+                        .statusCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .timestamp(new Date())
+                        .message(ex.getMessage())
+                        .description("Retry after " + ex.getRetryAfterSeconds() + " seconds")
+                        .build());
+    }
+
+    /**
+     * Handles ServiceUnavailableException and returns a 503 Service Unavailable response
+     * with a Retry-After header.
+     *
+     * @param ex The exception that was thrown.
+     * @return A ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorMessage> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ErrorMessage
+                        .builder()
+                        .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .timestamp(new Date())
+                        .message(ex.getMessage())
+                        .description("Retry after " + ex.getRetryAfterSeconds() + " seconds")
+                        .build());
+    }
+
     @ExceptionHandler(ExpiredJwtException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ErrorMessage handleExpiredJwtException(ExpiredJwtException ex) {
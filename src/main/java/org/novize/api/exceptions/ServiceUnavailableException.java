@@ -0,0 +1,24 @@
+package org.novize.api.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request is rejected because the server is overloaded.
+ * The client should retry after {@link #getRetryAfterSeconds()} seconds.
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package org.novize.api.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a client exceeded a rate limit.
+ * The client should retry after {@link #getRetryAfterSeconds()} seconds.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
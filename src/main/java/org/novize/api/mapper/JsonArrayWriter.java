@@ -0,0 +1,115 @@
+package org.novize.api.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes JSON arrays chunk by chunk.
+ * <p>
+ * Every chunk is loaded and serialized in its own short read-only transaction and only written to the client
+ * after that transaction has ended, so a slow client never holds a database connection and the heap only ever
+ * holds one chunk. The closing bracket is written after the last chunk: if loading or writing fails once the
+ * first chunk has been sent, the body ends inside the array and the container aborts the response, the client
+ * never receives a shorter but well-formed list.
+ */
+@Component
+public class JsonArrayWriter {
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] SEPARATOR = {','};
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public JsonArrayWriter(ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${json-stream.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Loads the next chunk of a keyset-paged query.
+     */
+    @FunctionalInterface
+    public interface ChunkLoader<T> {
+        /**
+         * @param last  the last element of the previous chunk, {@code null} for the first chunk
+         * @param chunk the maximum number of elements to load
+         */
+        List<T> load(T last, Pageable chunk);
+    }
+
+    /**
+     * Serializes each element with Jackson.
+     *
+     * @param loader loads the elements chunk by chunk
+     * @param mapper maps an entity to the object that is serialized, e.g. a DTO or the entity itself
+     * @param out    the stream to write to, it is not closed
+     */
+    public <T> void write(ChunkLoader<T> loader, Function<T, ?> mapper, OutputStream out) throws IOException {
+        writeRaw(loader, entity -> serialize(mapper.apply(entity)), out);
+    }
+
+    /**
+     * Writes elements that are already serialized, e.g. fragments of the {@link TaskJsonFragmentCache}.
+     *
+     * @param loader loads the elements chunk by chunk
+     * @param json   returns the UTF-8 encoded JSON value of an entity, called inside the chunk's transaction
+     * @param out    the stream to write to, it is not closed
+     */
+    public <T> void writeRaw(ChunkLoader<T> loader, Function<T, byte[]> json, OutputStream out) throws IOException {
+        out.write(ARRAY_START);
+        T last = null;
+        while (true) {
+            T after = last;
+            Chunk<T> chunk = transactionTemplate.execute(status -> {
+                List<T> entities = loader.load(after, PageRequest.of(0, chunkSize));
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                for (T entity : entities) {
+                    if (after != null || buffer.size() > 0) {
+                        buffer.writeBytes(SEPARATOR);
+                    }
+                    buffer.writeBytes(json.apply(entity));
+                }
+                return new Chunk<>(entities.isEmpty() ? null : entities.get(entities.size() - 1),
+                        entities.size(), buffer.toByteArray());
+            });
+            // Erst nach dem Commit schreiben, die Verbindung ist dann schon zurück im Pool
+            out.write(chunk.json());
+            out.flush();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            last = chunk.last();
+        }
+        out.write(ARRAY_END);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Chunk<T>(T last, int size, byte[] json) {
+    }
+}
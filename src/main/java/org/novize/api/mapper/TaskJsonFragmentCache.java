@@ -0,0 +1,157 @@
+package org.novize.api.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Cache of pre-serialized {@link org.novize.api.dtos.task.TaskDto} JSON (UTF-8) per task and viewer role.
+ * <p>
+ * The only viewer dependent field of a TaskDto is {@code owner}, so every task has at most two fragments.
+ * A fragment is valid as long as the task's {@code updatedAt} and the stamp of the shared users (who they are
+ * and their {@code updatedAt}, e.g. after an XP change) are unchanged. List responses are written by concatenating
+ * the fragments, only changed tasks are mapped and serialized again.
+ */
+@Component
+public class TaskJsonFragmentCache {
+    private static final Logger logger = LogManager.getLogger(TaskJsonFragmentCache.class);
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] SEPARATOR = {','};
+
+    private final TaskMapper taskMapper;
+    private final ObjectMapper objectMapper;
+    private final Cache<FragmentKey, Fragment> fragments;
+
+    public TaskJsonFragmentCache(TaskMapper taskMapper, ObjectMapper objectMapper,
+                                 @Value("${cache.task-fragments.maximum-bytes:16777216}") long maximumBytes) {
+        this.taskMapper = taskMapper;
+        this.objectMapper = objectMapper;
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((FragmentKey key, Fragment fragment) -> fragment.json().length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the serialized TaskDto of a task as seen by the given user.
+     *
+     * @param task   the task, its sharedWith collection must be initialized
+     * @param viewer the user requesting the task
+     * @return the UTF-8 encoded JSON object
+     */
+    public byte[] getFragment(Task task, AuthenticatedUser viewer) {
+        boolean owner = TaskMapper.isOwner(task, viewer);
+        long sharedStamp = sharedStamp(task);
+
+        if (task.getId() == null || task.getUpdatedAt() == null) {
+            return serialize(task, viewer);
+        }
+
+        FragmentKey key = new FragmentKey(task.getId(), owner);
+        Fragment fragment = fragments.getIfPresent(key);
+        if (fragment == null || !fragment.updatedAt().equals(task.getUpdatedAt()) || fragment.sharedStamp() != sharedStamp) {
+            fragment = new Fragment(task.getUpdatedAt(), sharedStamp, serialize(task, viewer));
+            fragments.put(key, fragment);
+        }
+        return fragment.json();
+    }
+
+    /**
+     * Writes the tasks as JSON array to the output stream.
+     *
+     * @param tasks  the tasks to write
+     * @param viewer the user requesting the tasks
+     * @param out    the stream to write to, it is neither flushed nor closed
+     */
+    public void writeArray(Collection<Task> tasks, AuthenticatedUser viewer, OutputStream out) throws IOException {
+        out.write(ARRAY_START);
+        boolean first = true;
+        for (Task task : tasks) {
+            if (!first) {
+                out.write(SEPARATOR);
+            }
+            out.write(getFragment(task, viewer));
+            first = false;
+        }
+        out.write(ARRAY_END);
+    }
+
+    /**
+     * Writes a {@link org.novize.api.dtos.task.TaskListDto} shaped object to the output stream.
+     */
+    public void writeList(Collection<Task> tasks, int pages, long count, AuthenticatedUser viewer, OutputStream out) throws IOException {
+        out.write("{\"tasks\":".getBytes(StandardCharsets.UTF_8));
+        writeArray(tasks, viewer, out);
+        out.write((",\"pages\":" + pages + ",\"count\":" + count + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Removes all fragments of a task. Called on every task mutation.
+     *
+     * @param taskId the id of the changed task
+     */
+    public void evict(String taskId) {
+        if (taskId == null) {
+            return;
+        }
+        fragments.invalidate(new FragmentKey(taskId, true));
+        fragments.invalidate(new FragmentKey(taskId, false));
+        logger.debug("Evicted JSON fragments of task {}", taskId);
+    }
+
+    long size() {
+        return fragments.estimatedSize();
+    }
+
+    private byte[] serialize(Task task, AuthenticatedUser viewer) {
+        try {
+            return objectMapper.writeValueAsBytes(taskMapper.toDto(task, viewer));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Unabhängig von der Reihenfolge, sharedWith hat keine stabile Iterationsreihenfolge
+    private static long sharedStamp(Task task) {
+        if (task.getSharedWith() == null) {
+            return 0L;
+        }
+        long stamp = 0L;
+        for (User user : task.getSharedWith()) {
+            long updated = user.getUpdatedAt() != null ? user.getUpdatedAt().getTime() : 0L;
+            long xp = user.getXp() != null ? user.getXp() : 0L;
+            stamp += mix(((long) Objects.hashCode(user.getId()) << 32) ^ updated ^ xp);
+        }
+        return stamp;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private record FragmentKey(String taskId, boolean owner) {
+    }
+
+    private record Fragment(LocalDateTime updatedAt, long sharedStamp, byte[] json) {
+    }
+}
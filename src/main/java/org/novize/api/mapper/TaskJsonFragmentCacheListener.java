@@ -0,0 +1,24 @@
+package org.novize.api.mapper;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.novize.api.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * JPA entity listener that drops the cached JSON fragments of a task as soon as it is changed or deleted.
+ * Instantiated by Hibernate through Spring, so the cache is injected.
+ */
+public class TaskJsonFragmentCacheListener {
+
+    @Autowired
+    private TaskJsonFragmentCache fragmentCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Task task) {
+        if (fragmentCache != null) {
+            fragmentCache.evict(task.getId());
+        }
+    }
+}
@@ -2,9 +2,9 @@ package org.novize.api.mapper;
 
 
 import lombok.RequiredArgsConstructor;
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.TaskDto;
 import org.novize.api.model.Task;
-import org.novize.api.model.User;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
@@ -15,7 +15,7 @@ import java.util.stream.Collectors;
 public class TaskMapper {
     private final UserMapper userMapper;
 
-    public TaskDto toDto(Task task, User currentUser) {
+    public TaskDto toDto(Task task, AuthenticatedUser currentUser) {
         TaskDto dto = new TaskDto();
 
         // Grundlegende Eigenschaften
@@ -41,7 +41,7 @@ public class TaskMapper {
         }
 
         // Prüfen, ob der aktuelle Benutzer der Eigentümer ist
-        dto.setOwner(task.isOwner(currentUser));
+        dto.setOwner(isOwner(task, currentUser));
 
         // Timer-Status
         dto.setPomodoroTimeMillis(task.getPomodoroTimeMillis());
@@ -52,4 +52,11 @@ public class TaskMapper {
 
         return dto;
     }
+
+    /**
+     * Whether the viewer owns the task. Only the ids are compared, the owner of the task is not loaded.
+     */
+    public static boolean isOwner(Task task, AuthenticatedUser viewer) {
+        return viewer != null && task.getUser() != null && viewer.id().equals(task.getUser().getId());
+    }
 }
\ No newline at end of file
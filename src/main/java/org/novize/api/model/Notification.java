@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+// Für die Bereinigung alter Benachrichtigungen (RetentionService)
+@Table(indexes = @Index(name = "idx_notification_created_at", columnList = "created_at"))
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
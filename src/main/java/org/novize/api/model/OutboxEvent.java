@@ -0,0 +1,49 @@
+package org.novize.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.novize.api.enums.OutboxEventType;
+
+import java.time.Instant;
+
+/**
+ * A message to be published over WebSocket, written in the same transaction as the change it announces.
+ * The row is deleted once the message was handed to the broker; its id travels with the message as
+ * {@code dedup-id} header so that clients can drop redeliveries.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_available_at", columnList = "available_at"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OutboxEventType type;
+
+    @Column(nullable = false, length = 50)
+    private String recipient;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Frühester Versandzeitpunkt, beim Beanspruchen um die Lease-Dauer verschoben
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(nullable = false)
+    private int attempts;
+}
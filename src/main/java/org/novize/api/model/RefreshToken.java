@@ -12,7 +12,7 @@ import java.time.Instant;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "refresh_token")
+@Table(name = "refresh_token", indexes = @Index(name = "idx_refresh_token_expiry_date", columnList = "expiry_date"))
 public class RefreshToken {
 
     @Id
@@ -21,6 +21,12 @@ public class RefreshToken {
 
     private Instant createdDate;
 
+    // Nur der SHA-256 Hash wird gespeichert, ein Datenbank-Leak verrät keine gültigen Tokens
+    @Column(name = "token_hash", length = 64, unique = true)
+    private String tokenHash;
+
+    // Klartext-Token, nur direkt nach dem Erstellen bekannt
+    @Transient
     private String token;
 
     private Instant expiryDate;
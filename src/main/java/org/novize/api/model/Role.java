@@ -2,6 +2,8 @@ package org.novize.api.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.novize.api.enums.RoleEnum;
@@ -10,6 +12,8 @@ import java.util.Date;
 
 @Table(name = "roles")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 
 @Data
 @Builder
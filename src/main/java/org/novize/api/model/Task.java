@@ -4,16 +4,22 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.novize.api.enums.TaskVisibility;
 import org.novize.api.enums.Urgency;
+import org.novize.api.mapper.TaskJsonFragmentCacheListener;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Table(name = "tasks")
 @Entity
+@EntityListeners(TaskJsonFragmentCacheListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tasks")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +43,7 @@ public class Task {
     @Column(updatable = false, name = "created_at")
     private LocalDateTime createdAt;
 
+    // Schlüssel für den JSON-Fragment-Cache, Änderungen an sharedWith erfasst dessen Stamp
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
@@ -54,6 +61,7 @@ public class Task {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task-shared-users")
     @ManyToMany
     @JoinTable(
             name = "task_shared_users",
@@ -90,12 +98,6 @@ public class Task {
         return user != null && this.user.getId().equals(user.getId());
     }
 
-    public boolean hasNoAccess(User user) {
-        return user == null ||
-                (!this.user.getId().equals(user.getId()) &&
-                        this.sharedWith.stream()
-                                .noneMatch(sharedUser -> sharedUser.getId().equals(user.getId())));
-    }
 
 
 
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
@@ -19,6 +21,8 @@ import java.util.List;
 
 @Table(name = "users")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -60,12 +64,24 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Long xp = 0L;
 
+    // Wird bei Logout erhöht, alle zuvor ausgestellten Access-Tokens werden damit ungültig
+    @JsonIgnore
+    @Column(name = "security_stamp", nullable = false)
+    private Long securityStamp = 0L;
+
+    // Wird nach dem ersten Seeding der Standard-Tasks gesetzt, spätere Logins prüfen die tasks-Tabelle nicht mehr
+    @JsonIgnore
+    @Column(name = "tasks_seeded", nullable = false)
+    private boolean tasksSeeded = false;
+
     @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Task> tasks;
 
+    // Lazy: wird nur bei Bedarf über UserRepository.findWithAchievementsById geladen
     @JsonIgnore
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch= FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-achievements-by-user")
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<UserAchievement> userAchievements;
 
     @JsonIgnore
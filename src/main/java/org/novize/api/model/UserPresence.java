@@ -0,0 +1,38 @@
+package org.novize.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A user with at least one WebSocket session on an application instance. Every instance refreshes its rows
+ * periodically, rows of instances that stopped sending heartbeats are considered offline and purged.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "user_presence",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_presence_instance_username", columnNames = {"instance_id", "username"}),
+        indexes = @Index(name = "idx_user_presence_username", columnList = "username"))
+public class UserPresence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    // E-Mail des Benutzers, wie sie auch convertAndSendToUser verwendet
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Column(name = "last_heartbeat", nullable = false)
+    private Instant lastHeartbeat;
+}
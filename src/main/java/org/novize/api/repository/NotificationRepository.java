@@ -2,12 +2,61 @@ package org.novize.api.repository;
 
 import org.novize.api.model.Notification;
 import org.novize.api.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, String> {
     List<Notification> findByRecipientOrderByCreatedAtDesc(User recipient);
     List<Notification> findByRecipientAndReadFalseOrderByCreatedAtDesc(User recipient);
     List<Notification> findByRecipientAndReadFalse(User recipient);
-}
\ No newline at end of file
+    List<Notification> findByRecipientAndReadFalseOrderByCreatedAtDesc(User recipient, Pageable pageable);
+    long countByRecipientAndReadFalse(User recipient);
+
+    /**
+     * Keyset pages of unread notifications, newest first and ordered by (createdAt, id) like
+     * {@link #findReadCreatedBefore}, each page starts after the last key of the previous one.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.read = false " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadByRecipient(@Param("recipient") User recipient, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.read = false " +
+            "AND (n.createdAt < :lastCreatedAt OR (n.createdAt = :lastCreatedAt AND n.id < :lastId)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadByRecipientAfter(@Param("recipient") User recipient,
+                                                  @Param("lastCreatedAt") LocalDateTime lastCreatedAt,
+                                                  @Param("lastId") String lastId,
+                                                  Pageable pageable);
+
+    /**
+     * Next batch of read notifications created before the cutoff, ordered by (createdAt, id) and starting
+     * after the given key, so every batch continues on the index instead of rescanning.
+     */
+    @Query("SELECT new org.novize.api.repository.NotificationRepository$NotificationKey(n.id, n.createdAt) " +
+            "FROM Notification n WHERE n.read = true AND n.createdAt < :cutoff " +
+            "AND (n.createdAt > :lastCreatedAt OR (n.createdAt = :lastCreatedAt AND n.id > :lastId)) " +
+            "ORDER BY n.createdAt, n.id")
+    List<NotificationKey> findReadCreatedBefore(@Param("cutoff") LocalDateTime cutoff,
+                                                @Param("lastCreatedAt") LocalDateTime lastCreatedAt,
+                                                @Param("lastId") String lastId,
+                                                Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+
+    record NotificationKey(String id, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,36 @@
+package org.novize.api.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.novize.api.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+
+    /**
+     * Oldest due events, locked for the rest of the transaction. Rows locked by another dispatcher are skipped
+     * (lock timeout -2 = SKIP LOCKED), so instances polling at the same time never claim the same event.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxEvent o WHERE o.availableAt <= :now ORDER BY o.createdAt, o.id")
+    List<OutboxEvent> claimDue(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.attempts = o.attempts + 1, o.availableAt = :availableAt WHERE o.id IN :ids")
+    int reschedule(@Param("ids") Collection<String> ids, @Param("availableAt") Instant availableAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+}
@@ -2,20 +2,61 @@ package org.novize.api.repository;
 
 import org.novize.api.model.RefreshToken;
 import org.novize.api.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Loads what the refresh endpoint needs without materializing the token or user entity.
+     */
+    @Query("select new org.novize.api.repository.RefreshTokenRepository$ActiveRefreshToken(r.user.id, r.expiryDate) " +
+            "from RefreshToken r where r.tokenHash = :tokenHash")
+    Optional<ActiveRefreshToken> findActiveByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    void deleteByTokenHash(String tokenHash);
 
     Optional<RefreshToken> findByUserId(String userId);
 
+    /**
+     * Replaces the token of a user in place, the login path needs a single statement instead of delete plus insert.
+     *
+     * @return the number of updated rows, 0 if the user has no token yet
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :tokenHash, r.createdDate = :createdDate, r.expiryDate = :expiryDate " +
+            "WHERE r.user.id = :userId")
+    int rotateForUser(@Param("userId") String userId,
+                      @Param("tokenHash") String tokenHash,
+                      @Param("createdDate") Instant createdDate,
+                      @Param("expiryDate") Instant expiryDate);
+
     @Modifying
     @Transactional
     void deleteByUserId(String userid);
-}
\ No newline at end of file
+
+    // Keyset-Batch für die Bereinigung: ids abgelaufener Tokens nach lastId
+    @Query("SELECT r.id FROM RefreshToken r WHERE r.expiryDate < :now AND r.id > :lastId ORDER BY r.id")
+    List<Integer> findExpiredIds(@Param("now") Instant now, @Param("lastId") int lastId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
+    record ActiveRefreshToken(String userId, Instant expiryDate) {
+    }
+}
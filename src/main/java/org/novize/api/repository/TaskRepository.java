@@ -1,17 +1,25 @@
 package org.novize.api.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.novize.api.dtos.task.TaskDto;
+import org.novize.api.dtos.task.TaskSummaryDto;
 import org.novize.api.model.Task;
 import org.novize.api.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +33,9 @@ public interface TaskRepository extends PagingAndSortingRepository<Task, String>
 
     List<Task> findByUserId(String id, Sort sort);
 
+    // EXISTS-Abfrage statt die komplette Liste zu laden
+    boolean existsByUserId(String userId);
+
 
 
 
@@ -34,14 +45,77 @@ public interface TaskRepository extends PagingAndSortingRepository<Task, String>
     @Query("SELECT t FROM Task t WHERE t.user = :user OR :user MEMBER OF t.sharedWith")
     List<Task> findTasksForUser(@Param("user") User user);
 
+    // Suche in den eigenen und den mit dem Benutzer geteilten Tasks, ein leerer Name findet alle
+    @Query(value = "SELECT t FROM Task t WHERE (t.user = :user OR :user MEMBER OF t.sharedWith) " +
+            "AND lower(t.name) LIKE lower(concat('%', :name, '%'))",
+            countQuery = "SELECT count(t) FROM Task t WHERE (t.user = :user OR :user MEMBER OF t.sharedWith) " +
+                    "AND lower(t.name) LIKE lower(concat('%', :name, '%'))")
+    Page<Task> searchTasksForUser(@Param("user") User user, @Param("name") String name, Pageable pageable);
+
     // Tasks that are shared by a user
     @Query("SELECT t FROM Task t WHERE :user MEMBER OF t.sharedWith")
     List<Task> findSharedWithUser(@Param("user") User user);
 
+    // Keyset-Seiten für gestreamte Antworten, nach ID sortiert, jede Seite beginnt nach der letzten ID der vorherigen
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT t FROM Task t WHERE (t.user = :user OR :user MEMBER OF t.sharedWith) AND t.id > :afterId ORDER BY t.id")
+    List<Task> findTasksForUserAfter(@Param("user") User user, @Param("afterId") String afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.id > :afterId ORDER BY t.id")
+    List<Task> findByUserIdAfter(@Param("userId") String userId, @Param("afterId") String afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT t FROM Task t WHERE :user MEMBER OF t.sharedWith AND t.id > :afterId ORDER BY t.id")
+    List<Task> findSharedWithUserAfter(@Param("user") User user, @Param("afterId") String afterId, Pageable pageable);
+
+    // Besitzer-ID und IDs der geteilten Benutzer (eine Zeile je Benutzer) für den TaskPermissionService, ohne Entities
+    @Query("SELECT t.user.id, u.id FROM Task t LEFT JOIN t.sharedWith u WHERE t.id = :taskId")
+    List<Object[]> findPermissionRows(@Param("taskId") String taskId);
+
     @Query("SELECT t FROM Task t WHERE t.user = :user AND t.timerActive = true")
     List<Task> findByUserAndTimerActiveTrue(@Param("user") User user);
 
+    // ID, Restzeit und letztes Update der laufenden Timer, die ein Benutzer besitzt oder geteilt bekommt, für den ActiveTimerCache
+    @Query("SELECT DISTINCT t.id, t.remainingTimeMillis, t.lastTimerUpdateTimestamp FROM Task t LEFT JOIN t.sharedWith u " +
+            "WHERE t.timerActive = true AND (t.user.email = :email OR u.email = :email)")
+    List<Object[]> findActiveTimerRows(@Param("email") String email);
+
     @Query("SELECT t FROM Task t WHERE t.timerActive = true")
     List<Task> findByTimerActiveTrue();
 
-}
\ No newline at end of file
+    /**
+     * Claims the active timers that are due for an update. Rows locked by another instance are skipped
+     * (lock timeout -2 = SKIP LOCKED), rows updated after {@code dueBefore} were already handled in this tick.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM Task t WHERE t.timerActive = true " +
+            "AND (t.lastTimerUpdateTimestamp IS NULL OR t.lastTimerUpdateTimestamp <= :dueBefore)")
+    List<Task> claimDueTimers(@Param("dueBefore") LocalDateTime dueBefore);
+
+    // Schlanke Listen-Projektionen: nur die Spalten von TaskSummaryDto, task_shared_users wird nur in der
+    // MEMBER-OF-Unterabfrage des Filters gelesen
+    String TASK_SUMMARY = "SELECT new org.novize.api.dtos.task.TaskSummaryDto(t.id, t.name, t.urgency, t.dueDate, t.completed) FROM Task t ";
+
+    @Query(TASK_SUMMARY + "WHERE t.user = :user OR :user MEMBER OF t.sharedWith ORDER BY t.createdAt")
+    List<TaskSummaryDto> findTaskSummariesForUser(@Param("user") User user);
+
+    @Query(TASK_SUMMARY + "WHERE t.user.id = :userId ORDER BY t.createdAt")
+    List<TaskSummaryDto> findTaskSummariesByUserId(@Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "WHERE :user MEMBER OF t.sharedWith ORDER BY t.createdAt")
+    List<TaskSummaryDto> findSharedTaskSummaries(@Param("user") User user);
+
+    // Nur eigene und geteilte Tasks, wie findTasksForUser
+    @Query(value = TASK_SUMMARY + "WHERE (t.user = :user OR :user MEMBER OF t.sharedWith) " +
+            "AND lower(t.name) LIKE lower(concat('%', :name, '%'))",
+            countQuery = "SELECT count(t) FROM Task t WHERE (t.user = :user OR :user MEMBER OF t.sharedWith) " +
+                    "AND lower(t.name) LIKE lower(concat('%', :name, '%'))")
+    Page<TaskSummaryDto> searchTaskSummariesForUser(@Param("user") User user, @Param("name") String name, Pageable pageable);
+
+    // Paare (Task-ID, Benutzer) für das Feld sharedWith der Zusammenfassungen, die Benutzer kommen meist aus dem Second-Level-Cache
+    @Query("SELECT t.id, u FROM Task t JOIN t.sharedWith u WHERE t.id IN :taskIds")
+    List<Object[]> findSharedUsers(@Param("taskIds") Collection<String> taskIds);
+
+}
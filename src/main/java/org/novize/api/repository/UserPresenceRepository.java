@@ -0,0 +1,43 @@
+package org.novize.api.repository;
+
+import org.novize.api.model.UserPresence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserPresenceRepository extends JpaRepository<UserPresence, String> {
+
+    @Query("SELECT p.username FROM UserPresence p WHERE p.instanceId = :instanceId")
+    List<String> findUsernamesByInstanceId(@Param("instanceId") String instanceId);
+
+    @Query("SELECT p.username FROM UserPresence p WHERE p.instanceId = :instanceId AND p.username IN :usernames")
+    List<String> findUsernamesByInstanceIdAndUsernameIn(@Param("instanceId") String instanceId,
+                                                        @Param("usernames") Collection<String> usernames);
+
+    boolean existsByUsernameAndLastHeartbeatAfter(String username, Instant after);
+
+    @Query("SELECT DISTINCT p.username FROM UserPresence p WHERE p.username IN :usernames AND p.lastHeartbeat > :after")
+    List<String> findOnlineUsernames(@Param("usernames") Collection<String> usernames, @Param("after") Instant after);
+
+    @Modifying
+    @Query("UPDATE UserPresence p SET p.lastHeartbeat = :now WHERE p.instanceId = :instanceId")
+    int touchInstance(@Param("instanceId") String instanceId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM UserPresence p WHERE p.instanceId = :instanceId AND p.username IN :usernames")
+    int deleteByInstanceIdAndUsernameIn(@Param("instanceId") String instanceId,
+                                        @Param("usernames") Collection<String> usernames);
+
+    @Modifying
+    @Query("DELETE FROM UserPresence p WHERE p.instanceId = :instanceId")
+    int deleteByInstanceId(@Param("instanceId") String instanceId);
+
+    @Modifying
+    @Query("DELETE FROM UserPresence p WHERE p.lastHeartbeat < :before")
+    int deleteStale(@Param("before") Instant before);
+}
@@ -1,15 +1,44 @@
 package org.novize.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.novize.api.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
 @Repository
 public interface UserRepository extends CrudRepository<User, String> {
+    // Die Suche nach dem Login-Namen läuft bei jedem authentifizierten Request, daher im Query-Cache.
+    // Hibernate verwirft die gecachten IDs bei jedem Schreibzugriff auf die users-Tabelle.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
-}
\ No newline at end of file
+    // Referenz ohne SELECT (JpaRepository#getReferenceById), für Abfragen und Assoziationen, die nur die ID brauchen
+    User getReferenceById(String id);
+
+    // Achievements sind lazy, lädt den Benutzer samt Achievements und deren Definitionen in einer Abfrage
+    @EntityGraph(attributePaths = {"userAchievements", "userAchievements.achievement"})
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findWithAchievementsById(@Param("id") String id);
+
+    @Query("SELECT u.securityStamp FROM User u WHERE u.id = :id")
+    Optional<Long> findSecurityStampById(@Param("id") String id);
+
+    // Keyset-Seiten für die Benutzerliste der Admins, jede Seite beginnt nach der letzten ID der vorherigen
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<User> findAllAfter(@Param("afterId") String afterId, Pageable pageable);
+
+}
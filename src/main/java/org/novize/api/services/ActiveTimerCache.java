@@ -0,0 +1,164 @@
+package org.novize.api.services;
+
+import org.novize.api.dtos.timer.ActiveTimerDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last published state of every running timer, indexed by the users who can see the task, so that the
+ * realtime snapshot is answered without touching the database.
+ * <p>
+ * Fed by {@link TimerNotificationService} after each committed timer change. The scheduler republishes every
+ * running timer each second, so the cache is complete one tick after a restart, and an entry that has not been
+ * refreshed within {@code websocket.snapshot.timer-stale-after} belongs to a timer that stopped without an update
+ * (e.g. its task was deleted). With a broker relay the ticks are split between the instances, so the running
+ * timers are then read from the database instead.
+ */
+@Component
+public class ActiveTimerCache {
+
+    private final TaskRepository taskRepository;
+    private final boolean complete;
+    private final long staleAfterNanos;
+
+    // Task-ID -> zuletzt veröffentlichter Zustand
+    private final Map<String, ActiveTimer> timers = new ConcurrentHashMap<>();
+    // Benutzername -> Task-IDs mit laufendem Timer
+    private final Map<String, Set<String>> tasksByUser = new ConcurrentHashMap<>();
+
+    public ActiveTimerCache(TaskRepository taskRepository,
+                            @Value("${websocket.broker.mode:simple}") BrokerMode brokerMode,
+                            @Value("${websocket.snapshot.timer-stale-after:5s}") Duration staleAfter) {
+        this.taskRepository = taskRepository;
+        this.complete = brokerMode == BrokerMode.SIMPLE;
+        this.staleAfterNanos = staleAfter.toNanos();
+    }
+
+    /**
+     * Stores the published state of a timer, a stopped timer is removed.
+     *
+     * @param viewers usernames of the task's owner and the users it is shared with
+     */
+    public void update(String taskId, Collection<String> viewers, TimerUpdateDto update) {
+        timers.compute(taskId, (id, previous) -> next(id, previous, viewers, update));
+    }
+
+    /**
+     * Like {@link #update(String, Collection, TimerUpdateDto)} for a scheduler tick: a known timer keeps the
+     * viewers stored when it started or its sharing changed, the given ones are only used for an unknown timer.
+     */
+    public void refresh(String taskId, Collection<String> viewersIfUnknown, TimerUpdateDto update) {
+        timers.compute(taskId, (id, previous) ->
+                next(id, previous, previous != null ? previous.viewers() : viewersIfUnknown, update));
+    }
+
+    /**
+     * @return the viewers of a running timer, {@code null} if the timer is not known here
+     */
+    public Set<String> viewers(String taskId) {
+        ActiveTimer timer = timers.get(taskId);
+        return timer != null ? timer.viewers() : null;
+    }
+
+    /**
+     * Replaces the viewers of a running timer after its task was shared or unshared.
+     */
+    public void updateViewers(String taskId, Collection<String> viewers) {
+        timers.computeIfPresent(taskId, (id, previous) -> {
+            previous.viewers().stream()
+                    .filter(viewer -> !viewers.contains(viewer))
+                    .forEach(viewer -> unindex(viewer, id));
+            viewers.forEach(viewer -> tasksByUser.computeIfAbsent(viewer, name -> ConcurrentHashMap.newKeySet()).add(id));
+            return new ActiveTimer(Set.copyOf(viewers), previous.remainingTimeMillis(), previous.updatedAtNanos());
+        });
+    }
+
+    // Läuft unter der Sperre des Eintrags in timers
+    private ActiveTimer next(String taskId, ActiveTimer previous, Collection<String> viewers, TimerUpdateDto update) {
+        boolean running = Boolean.TRUE.equals(update.getTimerActive()) && update.getRemainingTimeMillis() != null;
+        if (previous != null) {
+            previous.viewers().stream()
+                    .filter(viewer -> !running || !viewers.contains(viewer))
+                    .forEach(viewer -> unindex(viewer, taskId));
+        }
+        if (!running) {
+            return null;
+        }
+        viewers.forEach(viewer -> tasksByUser.computeIfAbsent(viewer, name -> ConcurrentHashMap.newKeySet()).add(taskId));
+        return new ActiveTimer(Set.copyOf(viewers), update.getRemainingTimeMillis(), System.nanoTime());
+    }
+
+    /**
+     * @return the running timers the user owns or shares, with the remaining time as of now
+     */
+    public List<ActiveTimerDto> activeTimers(String username) {
+        if (!complete) {
+            return loadActiveTimers(username);
+        }
+        Set<String> taskIds = tasksByUser.get(username);
+        if (taskIds == null) {
+            return List.of();
+        }
+        long now = System.nanoTime();
+        List<ActiveTimerDto> result = new ArrayList<>(taskIds.size());
+        for (String taskId : taskIds) {
+            ActiveTimer timer = timers.get(taskId);
+            if (timer == null) {
+                continue;
+            }
+            long elapsedNanos = now - timer.updatedAtNanos();
+            if (elapsedNanos > staleAfterNanos) {
+                // Seit mehreren Ticks nicht aktualisiert, unter der Sperre des Eintrags wie in update()
+                timers.computeIfPresent(taskId, (id, current) -> {
+                    if (current != timer) {
+                        return current;
+                    }
+                    current.viewers().forEach(viewer -> unindex(viewer, id));
+                    return null;
+                });
+                continue;
+            }
+            result.add(new ActiveTimerDto(taskId, remaining(timer.remainingTimeMillis(), elapsedNanos / 1_000_000)));
+        }
+        return result;
+    }
+
+    private List<ActiveTimerDto> loadActiveTimers(String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return taskRepository.findActiveTimerRows(username).stream()
+                .filter(row -> row[1] != null)
+                .map(row -> {
+                    LocalDateTime lastUpdate = (LocalDateTime) row[2];
+                    long elapsedMillis = lastUpdate != null ? ChronoUnit.MILLIS.between(lastUpdate, now) : 0L;
+                    return new ActiveTimerDto((String) row[0], remaining((Long) row[1], elapsedMillis));
+                })
+                .toList();
+    }
+
+    private void unindex(String username, String taskId) {
+        tasksByUser.computeIfPresent(username, (name, taskIds) -> {
+            taskIds.remove(taskId);
+            return taskIds.isEmpty() ? null : taskIds;
+        });
+    }
+
+    private static long remaining(long remainingTimeMillis, long elapsedMillis) {
+        return Math.max(0L, remainingTimeMillis - Math.max(0L, elapsedMillis));
+    }
+
+    private record ActiveTimer(Set<String> viewers, long remainingTimeMillis, long updatedAtNanos) {
+    }
+}
@@ -9,6 +9,7 @@ import org.novize.api.model.User;
 import org.novize.api.repository.RoleRepository;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -55,14 +56,22 @@ public class AuthenticationService {
         return userService.saveUser(user);
     }
 
+    /**
+     * Checks the credentials and returns the authenticated user. The user loaded by the
+     * {@link org.springframework.security.authentication.dao.DaoAuthenticationProvider} is reused,
+     * so a login does not query the user twice.
+     */
     public User authenticate(LoginUserDto input) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         input.getEmail(),
                         input.getPassword()
                 )
         );
 
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
         return userService.findUserByUsername(input.getEmail());
     }
     
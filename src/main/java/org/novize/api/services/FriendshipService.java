@@ -63,5 +63,13 @@ public interface FriendshipService {
      */
     boolean areNotFriends(User currentUser, User friend);
 
+    /**
+     * Retrieves the accepted friendships of a user whose friend currently has a WebSocket session.
+     *
+     * @param user the user for whom to fetch online friends
+     * @return the accepted {@link Friendship} objects with an online friend
+     */
+    List<Friendship> getOnlineFriends(User user);
+
 
 }
\ No newline at end of file
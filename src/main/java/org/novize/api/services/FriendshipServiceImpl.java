@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of the FriendshipService interface to manage friendships between users.
@@ -29,6 +30,8 @@ public class FriendshipServiceImpl implements FriendshipService {
     private FriendshipRepository friendshipRepository;
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private PresenceService presenceService;
 
     // Method to get all friends of a user
     public List<Friendship> getFriendshipsByUser(User user) {
@@ -153,5 +156,23 @@ public class FriendshipServiceImpl implements FriendshipService {
         return !friendshipRepository.existsByUserAndFriendAndStatus(currentUser, friend, FriendshipStatus.ACCEPTED);
     }
 
-
-}
\ No newline at end of file
+    /**
+     * Retrieves the accepted friendships of the user whose friend is connected to any instance.
+     * Presence is resolved for all friends at once, at most one query for friends on other instances.
+     *
+     * @param user the user for whom to fetch online friends
+     * @return the accepted friendships with an online friend
+     */
+    @Override
+    public List<Friendship> getOnlineFriends(User user) {
+        List<Friendship> friendships = getFriendshipsByUser(user);
+        if (friendships.isEmpty()) {
+            return friendships;
+        }
+        Set<String> online = presenceService.onlineUsernames(
+                friendships.stream().map(friendship -> friendship.getFriend().getEmail()).toList());
+        return friendships.stream()
+                .filter(friendship -> online.contains(friendship.getFriend().getEmail()))
+                .toList();
+    }
+}
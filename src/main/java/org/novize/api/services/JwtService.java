@@ -1,25 +1,44 @@
 package org.novize.api.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import org.novize.api.auth.JwtPrincipal;
+import org.novize.api.enums.RoleEnum;
 import org.novize.api.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_STAMP = "stamp";
+
     @Value("${security.jwt.secret-key}")
     private String secretKey;
 
@@ -31,10 +50,44 @@ public class JwtService {
     @Value("${security.jwt.token-type}")
     private String tokenType;
 
+    @Value("${security.jwt.validation-cache.maximum-size:10000}")
+    private long validationCacheSize;
+
     @Autowired
     private RefreshTokenService refreshTokenService;
 
-
+    // Schlüssel und Parser sind unveränderlich und threadsicher, daher nur einmal erzeugen
+    private Key signInKey;
+    private JwtParser parser;
+    // Bereits verifizierte Tokens (SHA-256 Hash -> Principal), jeder Eintrag lebt bis zum Ablauf des Tokens
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(validationCacheSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String hash, JwtPrincipal principal, long currentTime) {
+                        return Math.max(0L, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return expireAfterCreate(hash, principal, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public Map<String, String> generateTokens(UserDetails userDetails) {
         String accessToken = generateToken(userDetails);
@@ -46,7 +99,7 @@ public class JwtService {
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return validate(token).username();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -60,6 +113,12 @@ public class JwtService {
             extraClaims.put("firstname", user.getFirstname());
             extraClaims.put("lastname", user.getLastname());
             extraClaims.put("email", user.getUsername());
+            // Genügt im zustandslosen Modus zur Authentifizierung, ohne den Benutzer zu laden
+            extraClaims.put(CLAIM_USER_ID, user.getId());
+            if (user.getRole() != null) {
+                extraClaims.put(CLAIM_ROLE, user.getRole().getName().name());
+            }
+            extraClaims.put(CLAIM_STAMP, user.getSecurityStamp());
             return generateToken(extraClaims, userDetails);
         }
         return generateToken(new HashMap<>(), userDetails);
@@ -86,33 +145,65 @@ public class JwtService {
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
+    /**
+     * Verifies signature and expiration of a token with a single parse. Recently verified tokens are answered
+     * from a bounded cache keyed by the SHA-256 hash of the token, the raw token is never stored.
+     *
+     * @param token the compact JWT
+     * @return the validated principal
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, has an invalid signature or is expired
+     */
+    public JwtPrincipal validate(String token) {
+        String hash = hash(token);
+        JwtPrincipal principal = verifiedTokens.getIfPresent(hash);
+        if (principal != null && !principal.isExpired(Instant.now())) {
+            return principal;
+        }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        Claims claims = extractAllClaims(token);
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new MalformedJwtException("Token without subject or expiration");
+        }
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Number stamp = claims.get(CLAIM_STAMP, Number.class);
+        principal = new JwtPrincipal(
+                claims.getSubject(),
+                claims.get(CLAIM_USER_ID, String.class),
+                role != null ? RoleEnum.valueOf(role) : null,
+                stamp != null ? stamp.longValue() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+        if (principal.isExpired(Instant.now())) {
+            throw new ExpiredJwtException(null, claims, "JWT expired at " + principal.expiresAt());
+        }
+        verifiedTokens.put(hash, principal);
+        return principal;
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return validate(token).username().equals(userDetails.getUsername());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     protected Key getSignInKey() {
+        return signInKey;
+    }
 
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * @return the hex encoded SHA-256 hash of the token, used wherever tokens are stored or cached
+     */
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
 
@@ -0,0 +1,216 @@
+package org.novize.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.dtos.auth.LoginAttemptDto;
+import org.novize.api.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Throttles failed logins per username and per client IP, so that credential stuffing is rejected
+ * before BCrypt runs.
+ * <p>
+ * Failures are counted in a sliding window approximated from the current and the previous fixed window.
+ * Once a key exceeds its limit it is blocked, every further violation doubles the block duration up to
+ * {@code max-block}. Entries are evicted after two idle windows, so memory stays bounded by the number of
+ * recently active keys. Updates of one key are serialized through a fixed set of lock stripes.
+ */
+@Service
+public class LoginAttemptService {
+    private static final Logger logger = LogManager.getLogger(LoginAttemptService.class);
+    private static final String USER_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+    private static final int STRIPES = 64;
+
+    private final Clock clock;
+    private final long windowMillis;
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerIp;
+    private final long baseBlockMillis;
+    private final long maxBlockMillis;
+    private final Cache<String, Attempts> attempts;
+    private final Object[] locks = new Object[STRIPES];
+
+    @Autowired
+    public LoginAttemptService(@Value("${security.login-throttle.window:15m}") Duration window,
+                               @Value("${security.login-throttle.max-failures-per-user:5}") int maxFailuresPerUser,
+                               @Value("${security.login-throttle.max-failures-per-ip:20}") int maxFailuresPerIp,
+                               @Value("${security.login-throttle.base-block:30s}") Duration baseBlock,
+                               @Value("${security.login-throttle.max-block:1h}") Duration maxBlock,
+                               @Value("${security.login-throttle.maximum-size:100000}") long maximumSize) {
+        this(Clock.systemUTC(), window, maxFailuresPerUser, maxFailuresPerIp, baseBlock, maxBlock, maximumSize);
+    }
+
+    LoginAttemptService(Clock clock, Duration window, int maxFailuresPerUser, int maxFailuresPerIp,
+                        Duration baseBlock, Duration maxBlock, long maximumSize) {
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.baseBlockMillis = baseBlock.toMillis();
+        this.maxBlockMillis = maxBlock.toMillis();
+        // Nach zwei Fenstern ohne Zugriff trägt ein Eintrag nichts mehr zur Schätzung bei
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(window.multipliedBy(2).plus(maxBlock))
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Rejects the login attempt if the username or the client IP is currently blocked.
+     *
+     * @throws TooManyRequestsException if either key is blocked
+     */
+    public void checkAllowed(String username, String clientIp) {
+        long now = clock.millis();
+        long blockedUntil = Math.max(blockedUntil(userKey(username), now), blockedUntil(ipKey(clientIp), now));
+        if (blockedUntil > now) {
+            long retryAfterSeconds = Math.max(1, (blockedUntil - now + 999) / 1000);
+            throw new TooManyRequestsException("Too many failed login attempts", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Counts a failed login against the username and the client IP.
+     */
+    public void loginFailed(String username, String clientIp) {
+        long now = clock.millis();
+        recordFailure(userKey(username), maxFailuresPerUser, now);
+        recordFailure(ipKey(clientIp), maxFailuresPerIp, now);
+    }
+
+    /**
+     * Resets the counter of the username. The IP counter is kept, a single valid account must not
+     * unlock a stuffing run against all others.
+     */
+    public void loginSucceeded(String username) {
+        attempts.invalidate(userKey(username));
+    }
+
+    /**
+     * @return the state of all tracked keys, blocked keys first
+     */
+    public List<LoginAttemptDto> getAttempts() {
+        long now = clock.millis();
+        return attempts.asMap().entrySet().stream()
+                .map(entry -> {
+                    synchronized (lockFor(entry.getKey())) {
+                        Attempts a = entry.getValue();
+                        return LoginAttemptDto.builder()
+                                .key(entry.getKey())
+                                .failures(a.estimate(now, windowMillis))
+                                .strikes(a.strikes)
+                                .blockedUntil(a.blockedUntil > now ? Instant.ofEpochMilli(a.blockedUntil) : null)
+                                .build();
+                    }
+                })
+                .sorted(Comparator.comparing(LoginAttemptDto::getBlockedUntil,
+                                Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(LoginAttemptDto::getFailures, Comparator.reverseOrder()))
+                .toList();
+    }
+
+    /**
+     * Removes the counter of a key, e.g. {@code user:jane@example.com} or {@code ip:10.0.0.1}.
+     *
+     * @return whether the key was tracked
+     */
+    public boolean reset(String key) {
+        return attempts.asMap().remove(key) != null;
+    }
+
+    private long blockedUntil(String key, long now) {
+        Attempts a = attempts.getIfPresent(key);
+        if (a == null) {
+            return 0L;
+        }
+        synchronized (lockFor(key)) {
+            return a.blockedUntil;
+        }
+    }
+
+    private void recordFailure(String key, int limit, long now) {
+        Attempts a = attempts.get(key, k -> new Attempts(alignToWindow(now)));
+        synchronized (lockFor(key)) {
+            a.roll(now, windowMillis);
+            a.current++;
+            if (a.estimate(now, windowMillis) >= limit && a.blockedUntil <= now) {
+                // Progressiver Backoff: jede weitere Überschreitung verdoppelt die Sperre
+                int shift = Math.min(a.strikes, 30);
+                a.strikes++;
+                long block = Math.min(baseBlockMillis << shift, maxBlockMillis);
+                a.blockedUntil = now + block;
+                logger.warn("Blocking login for {} for {} ms after {} strikes", key, block, a.strikes);
+            }
+        }
+    }
+
+    private long alignToWindow(long now) {
+        return now - now % windowMillis;
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String userKey(String username) {
+        return USER_PREFIX + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String clientIp) {
+        return IP_PREFIX + clientIp;
+    }
+
+    /**
+     * Counters of one key, guarded by its lock stripe.
+     */
+    private static final class Attempts {
+        private long windowStart;
+        private int previous;
+        private int current;
+        private int strikes;
+        private long blockedUntil;
+
+        private Attempts(long windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        private void roll(long now, long windowMillis) {
+            long elapsedWindows = (now - windowStart) / windowMillis;
+            if (elapsedWindows >= 1) {
+                previous = elapsedWindows == 1 ? current : 0;
+                current = 0;
+                windowStart += elapsedWindows * windowMillis;
+            }
+            if (elapsedWindows >= 2 && blockedUntil <= now) {
+                // Lange genug ruhig, Backoff beginnt von vorn
+                strikes = 0;
+            }
+        }
+
+        private double estimate(long now, long windowMillis) {
+            long elapsed = now - windowStart;
+            if (elapsed >= 2 * windowMillis) {
+                return 0;
+            }
+            if (elapsed >= windowMillis) {
+                return current * (1 - (double) (elapsed - windowMillis) / windowMillis);
+            }
+            return previous * (1 - (double) elapsed / windowMillis) + current;
+        }
+    }
+}
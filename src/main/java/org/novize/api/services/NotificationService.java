@@ -1,19 +1,51 @@
 package org.novize.api.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.dtos.NotificationBacklogDto;
 import org.novize.api.dtos.NotificationDto;
 import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.OutboxEventType;
+import org.novize.api.enums.WireFormat;
 import org.novize.api.mapper.NotificationMapper;
 import org.novize.api.model.Notification;
 import org.novize.api.model.User;
 import org.novize.api.repository.NotificationRepository;
+import org.novize.api.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
+    /**
+     * Subscribing to this destination delivers the unread notifications once, see {@link NotificationBacklogDto}.
+     */
+    public static final String BACKLOG_DESTINATION = "/user/queue/notifications/backlog";
+    public static final String DEDUP_ID_HEADER = "dedup-id";
 
     @Autowired
     NotificationRepository notificationRepository;
@@ -24,9 +56,59 @@ public class NotificationService {
     @Autowired
     NotificationMapper notificationMapper;
 
+    @Autowired
+    SimpUserRegistry simpUserRegistry;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PresenceService presenceService;
+
+    @Autowired
+    OutboxService outboxService;
+
+    // Antworten direkt an die Session, ohne Umweg über den Broker
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    MessageChannel clientOutboundChannel;
+
+    @Autowired
+    @Qualifier("brokerMessageConverter")
+    MessageConverter brokerMessageConverter;
+
+    @Value("${websocket.cbor.enabled:false}")
+    boolean cborEnabled;
+
+    @Value("${notifications.backlog.max-size:20}")
+    int backlogMaxSize;
+
+    @Value("${notifications.backlog.cache.maximum-size:10000}")
+    long backlogCacheMaximumSize;
+
+    // Änderungen auf anderen Instanzen werden erst nach Ablauf sichtbar
+    @Value("${notifications.backlog.cache.expire-after-write:1m}")
+    Duration backlogCacheExpireAfterWrite;
+
+    private SimpMessagingTemplate sessionTemplate;
+
+    // Benutzername -> Backlog, damit Reconnect-Wellen nicht auf der Datenbank landen
+    private Cache<String, NotificationBacklogDto> backlogs;
+
+    @PostConstruct
+    void init() {
+        sessionTemplate = new SimpMessagingTemplate(clientOutboundChannel);
+        sessionTemplate.setMessageConverter(brokerMessageConverter);
+        backlogs = Caffeine.newBuilder()
+                .maximumSize(backlogCacheMaximumSize)
+                .expireAfterWrite(backlogCacheExpireAfterWrite)
+                .build();
+    }
+
     /**
      * Sendet eine Benachrichtigung an einen Benutzer
      */
+    @Transactional
     public NotificationDto sendNotification(User recipient, NotificationType type, String message, String payload) {
         // Benachrichtigung in der Datenbank speichern
         Notification notification = new Notification();
@@ -40,15 +122,138 @@ public class NotificationService {
         // NotificationDto erstellen
         NotificationDto notificationDto = notificationMapper.toDto(notification);
 
+        // Gecachten Backlog fortschreiben statt ihn neu zu laden
+        if (recipient.getEmail() != null) {
+            NotificationDto backlogEntry = notificationMapper.toDto(notification);
+            backlogEntry.setRecipient(null);
+            afterCommit(() -> backlogs.asMap().computeIfPresent(recipient.getEmail(),
+                    (username, backlog) -> prepend(backlog, backlogEntry)));
+        }
 
-        // Echtzeit-Benachrichtigung über WebSocket senden
+        // Offline: nur speichern, der Client bekommt sie beim nächsten Verbinden über den Backlog
+        if (presenceService.isOnline(recipient.getEmail())) {
+            // Versand erst nach dem Commit durch den OutboxDispatcher
+            outboxService.enqueue(OutboxEventType.USER_NOTIFICATION, recipient.getEmail(), notificationDto);
+        }
+
+        return notificationDto;
+    }
+
+    /**
+     * Publishes a stored notification over WebSocket, called by the {@link OutboxDispatcher}.
+     *
+     * @param dedupId identifies the message across redeliveries, sent as {@value #DEDUP_ID_HEADER} header
+     */
+    public void deliver(String username, NotificationDto notificationDto, String dedupId) {
+        Map<String, String> nativeHeaders = Map.of(DEDUP_ID_HEADER, dedupId);
         messagingTemplate.convertAndSendToUser(
-                recipient.getEmail(),
+                username,
                 "/queue/notifications",
-                notificationDto
+                notificationDto,
+                WireFormat.JSON.messageHeaders(nativeHeaders)
         );
+        // CBOR-Kopie nur für Clients, die die .cbor-Queue abonniert haben
+        if (cborEnabled && subscribesTo(username, WireFormat.CBOR.destination("/user/queue/notifications"))) {
+            messagingTemplate.convertAndSendToUser(
+                    username,
+                    WireFormat.CBOR.destination("/queue/notifications"),
+                    notificationDto,
+                    WireFormat.CBOR.messageHeaders(nativeHeaders)
+            );
+        }
+    }
 
-        return notificationDto;
+    /**
+     * Answers a subscription to {@link #BACKLOG_DESTINATION} with the newest unread notifications of the user.
+     */
+    @EventListener
+    public void onBacklogSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Principal principal = event.getUser();
+        if (principal == null || !BACKLOG_DESTINATION.equals(accessor.getDestination())) {
+            return;
+        }
+        NotificationBacklogDto backlog = getBacklog(principal.getName());
+        if (backlog == null) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(accessor.getSessionId());
+        headers.setSubscriptionId(accessor.getSubscriptionId());
+        headers.setLeaveMutable(true);
+        sessionTemplate.convertAndSend(BACKLOG_DESTINATION, backlog, headers.getMessageHeaders());
+    }
+
+    /**
+     * Newest unread notifications of a user without the recipient, plus the total number of unread ones.
+     * Served from memory; the database is only read the first time and after the user marked or deleted one.
+     */
+    public NotificationBacklogDto getBacklog(User user) {
+        return backlogs.get(user.getEmail(), username -> loadBacklog(user));
+    }
+
+    /**
+     * Like {@link #getBacklog(User)}, the user is only loaded if the backlog is not cached.
+     *
+     * @return the backlog, {@code null} if the user does not exist
+     */
+    public NotificationBacklogDto getBacklog(String username) {
+        return backlogs.get(username, name -> userRepository.findByEmail(name).map(this::loadBacklog).orElse(null));
+    }
+
+    private NotificationBacklogDto loadBacklog(User user) {
+        List<NotificationDto> newest = notificationRepository
+                .findByRecipientAndReadFalseOrderByCreatedAtDesc(user, PageRequest.of(0, backlogMaxSize))
+                .stream()
+                .map(notification -> {
+                    NotificationDto dto = notificationMapper.toDto(notification);
+                    dto.setRecipient(null);
+                    return dto;
+                })
+                .toList();
+        long unread = newest.size() < backlogMaxSize ? newest.size() : notificationRepository.countByRecipientAndReadFalse(user);
+        return new NotificationBacklogDto(unread, newest);
+    }
+
+    // Gecachte Backlogs werden nicht verändert, sondern ersetzt
+    private NotificationBacklogDto prepend(NotificationBacklogDto backlog, NotificationDto notification) {
+        List<NotificationDto> newest = new ArrayList<>(Math.min(backlog.getNotifications().size() + 1, backlogMaxSize));
+        newest.add(notification);
+        backlog.getNotifications().stream().limit(backlogMaxSize - 1L).forEach(newest::add);
+        return new NotificationBacklogDto(backlog.getUnreadCount() + 1, List.copyOf(newest));
+    }
+
+    private void evictBacklog(User user) {
+        if (user != null) {
+            evictBacklog(user.getEmail());
+        }
+    }
+
+    private void evictBacklog(String email) {
+        if (email != null) {
+            afterCommit(() -> backlogs.invalidate(email));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private boolean subscribesTo(String username, String destination) {
+        SimpUser user = simpUserRegistry.getUser(username);
+        return user != null && user.getSessions().stream()
+                .flatMap(session -> session.getSubscriptions().stream())
+                .anyMatch(subscription -> destination.equals(subscription.getDestination()));
     }
 
     /**
@@ -58,6 +263,20 @@ public class NotificationService {
         var notifications =  notificationRepository.findByRecipientAndReadFalseOrderByCreatedAtDesc(user);
         return notificationMapper.toDtoList(notifications);    }
 
+    /**
+     * Holt den nächsten Block ungelesener Benachrichtigungen für einen Benutzer, die neuesten zuerst
+     *
+     * @param after die letzte Benachrichtigung des vorherigen Blocks, {@code null} für den ersten Block
+     */
+    public List<Notification> findUnreadNotificationChunk(AuthenticatedUser user, Notification after, Pageable chunk) {
+        // Referenz ohne SELECT, die Abfrage braucht nur die ID des Empfängers
+        User recipient = userRepository.getReferenceById(user.id());
+        if (after == null) {
+            return notificationRepository.findUnreadByRecipient(recipient, chunk);
+        }
+        return notificationRepository.findUnreadByRecipientAfter(recipient, after.getCreatedAt(), after.getId(), chunk);
+    }
+
     /**
      * Markiert eine Benachrichtigung als gelesen
      */
@@ -66,20 +285,23 @@ public class NotificationService {
                 .orElseThrow(() -> new RuntimeException("Benachrichtigung nicht gefunden"));
         notification.setRead(true);
         notificationRepository.save(notification);
+        evictBacklog(notification.getRecipient());
     }
 
     /**
      * Markiert alle Benachrichtigungen eines Benutzers als gelesen
      */
-    public void markAllAsRead(User user) {
-        List<Notification> notifications = notificationRepository.findByRecipientAndReadFalse(user);
+    public void markAllAsRead(AuthenticatedUser user) {
+        List<Notification> notifications = notificationRepository.findByRecipientAndReadFalse(userRepository.getReferenceById(user.id()));
         notifications.forEach(n -> n.setRead(true));
         notificationRepository.saveAll(notifications);
+        evictBacklog(user.username());
     }
 
     public void deleteNotification(String notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Benachrichtigung nicht gefunden"));
         notificationRepository.delete(notification);
+        evictBacklog(notification.getRecipient());
     }
 }
@@ -0,0 +1,153 @@
+package org.novize.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.dtos.NotificationDto;
+import org.novize.api.model.OutboxEvent;
+import org.novize.api.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the outbox.
+ * <p>
+ * Each poll claims a batch of due events with {@code SELECT ... FOR UPDATE SKIP LOCKED} and moves their
+ * {@code available_at} one lease into the future, then commits. The events are published on the realtime
+ * publish executor, one task per recipient so that a user's messages keep their order, and deleted afterwards.
+ * If an instance dies in between, the lease expires and another dispatcher publishes the events again:
+ * delivery is at-least-once, clients drop duplicates by the {@code dedup-id} header.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger logger = LogManager.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor publishExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Timer lag;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${outbox.lease:30s}")
+    private Duration lease;
+    @Value("${outbox.retry-delay:5s}")
+    private Duration retryDelay;
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            NotificationService notificationService,
+                            ObjectMapper objectMapper,
+                            @Qualifier("realtimePublishExecutor") TaskExecutor publishExecutor,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.publishExecutor = publishExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.delivered = outcome(meterRegistry, "delivered");
+        this.retried = outcome(meterRegistry, "retried");
+        this.dropped = outcome(meterRegistry, "dropped");
+        this.lag = Timer.builder("outbox.lag")
+                .description("Time from writing an outbox event to publishing it")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims one batch of due events and hands it to the publish executor.
+     *
+     * @return the number of claimed events
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:250ms}")
+    public int dispatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = outboxEventRepository.claimDue(now, PageRequest.of(0, batchSize));
+            // Lease: bis zum Ablauf beansprucht keine andere Instanz diese Events
+            due.forEach(event -> event.setAvailableAt(now.plus(lease)));
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<OutboxEvent>> byRecipient = new LinkedHashMap<>();
+        claimed.forEach(event -> byRecipient.computeIfAbsent(event.getRecipient(), r -> new ArrayList<>()).add(event));
+        byRecipient.values().forEach(events -> {
+            try {
+                publishExecutor.execute(() -> publish(events));
+            } catch (TaskRejectedException e) {
+                // Executor voll: die Lease läuft ab, dann wird erneut versucht
+                logger.warn("Publish executor is saturated, {} outbox events wait for their lease to expire", events.size());
+            }
+        });
+        return claimed.size();
+    }
+
+    private void publish(List<OutboxEvent> events) {
+        List<String> done = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            try {
+                switch (event.getType()) {
+                    case USER_NOTIFICATION -> notificationService.deliver(event.getRecipient(),
+                            objectMapper.readValue(event.getPayload(), NotificationDto.class), event.getId());
+                }
+                done.add(event.getId());
+                delivered.increment();
+                lag.record(Duration.between(event.getCreatedAt(), Instant.now()));
+            } catch (Exception e) {
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    // Die Benachrichtigung selbst bleibt gespeichert und kommt mit dem Backlog
+                    logger.error("Dropping outbox event {} after {} attempts: {}", event.getId(), maxAttempts, e.getMessage());
+                    done.add(event.getId());
+                    dropped.increment();
+                } else {
+                    logger.warn("Publishing outbox event {} failed, retrying: {}", event.getId(), e.getMessage());
+                    failed.add(event.getId());
+                    retried.increment();
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                outboxEventRepository.deleteByIdIn(done);
+            }
+            if (!failed.isEmpty()) {
+                outboxEventRepository.reschedule(failed, Instant.now().plus(retryDelay));
+            }
+        });
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("outbox.events")
+                .description("Outbox events by publishing outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package org.novize.api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.novize.api.enums.OutboxEventType;
+import org.novize.api.model.OutboxEvent;
+import org.novize.api.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Writes WebSocket messages to the outbox. The event joins the caller's transaction: it is only published
+ * by {@link OutboxDispatcher} if that transaction commits.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public OutboxEvent enqueue(OutboxEventType type, String recipient, Object payload) {
+        Instant now = Instant.now();
+        try {
+            return outboxEventRepository.save(OutboxEvent.builder()
+                    .type(type)
+                    .recipient(recipient)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(now)
+                    .availableAt(now)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + type, e);
+        }
+    }
+}
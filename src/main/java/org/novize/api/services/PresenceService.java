@@ -0,0 +1,251 @@
+package org.novize.api.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.model.UserPresence;
+import org.novize.api.repository.UserPresenceRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks which users have a WebSocket session.
+ * <p>
+ * Sessions on this instance are counted from the STOMP session events and are always exact. With a broker
+ * relay the first session of a user is written to {@code user_presence} right away, so other instances push
+ * to them from the moment they connected. The write runs on the realtime publish executor, not on the STOMP
+ * event thread, and users connecting while one is queued are written together with it. Every {@code presence.heartbeat-interval} the rows of this instance are
+ * refreshed; rows whose heartbeat is older than {@code presence.ttl} belong to a stopped instance and are removed.
+ */
+@Service
+public class PresenceService {
+    private static final Logger logger = LogManager.getLogger(PresenceService.class);
+
+    private final UserPresenceRepository userPresenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor writeExecutor;
+    private final String instanceId;
+    private final Duration ttl;
+    // Mit dem Simple-Broker kann ein Benutzer auf einer anderen Instanz von hier aus ohnehin nicht erreicht werden
+    private final boolean clustered;
+
+    // Benutzername -> Session-IDs auf dieser Instanz, compute() sperrt nur den Eintrag des Benutzers
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+    // Neu verbundene Benutzer, die der nächste Schreib-Task in user_presence einträgt
+    private final Set<String> pendingJoins = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean joinWriteScheduled = new AtomicBoolean();
+    // Schreib-Task und Heartbeat schreiben dieselben Zeilen (Unique-Key instance_id/username),
+    // der STOMP-Thread nimmt diese Sperre nie
+    private final Object writeLock = new Object();
+
+    public PresenceService(UserPresenceRepository userPresenceRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Qualifier("realtimePublishExecutor") TaskExecutor writeExecutor,
+                           @Value("${presence.instance-id:${random.uuid}}") String instanceId,
+                           @Value("${presence.ttl:45s}") Duration ttl,
+                           @Value("${websocket.broker.mode:simple}") BrokerMode brokerMode,
+                           MeterRegistry meterRegistry) {
+        this.userPresenceRepository = userPresenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeExecutor = writeExecutor;
+        this.instanceId = instanceId;
+        this.ttl = ttl;
+        this.clustered = brokerMode != BrokerMode.SIMPLE;
+        Gauge.builder("presence.users.online", localSessions, Map::size)
+                .description("Users with at least one WebSocket session on this instance")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+        boolean[] firstSession = {false};
+        localSessions.compute(user.getName(), (name, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                firstSession[0] = true;
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+        if (clustered && firstSession[0]) {
+            pendingJoins.add(user.getName());
+            // Nicht auf den nächsten Heartbeat warten: Benachrichtigungen anderer Instanzen würden bis dahin
+            // nur gespeichert, und das Nachladen beim Verbinden ist dann schon gelaufen
+            scheduleJoinWrite();
+        }
+    }
+
+    private void scheduleJoinWrite() {
+        if (!joinWriteScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writeExecutor.execute(this::writeJoins);
+        } catch (TaskRejectedException e) {
+            // Der nächste Heartbeat trägt alle verbundenen Benutzer ein
+            joinWriteScheduled.set(false);
+            pendingJoins.clear();
+            logger.warn("Could not schedule presence write, executor is saturated");
+        }
+    }
+
+    private void writeJoins() {
+        // Vor dem Auslesen freigeben, wer danach verbindet, plant einen neuen Task
+        joinWriteScheduled.set(false);
+        List<String> joined = new ArrayList<>(pendingJoins);
+        pendingJoins.removeAll(joined);
+        if (joined.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            synchronized (writeLock) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Set<String> persisted = new HashSet<>(
+                            userPresenceRepository.findUsernamesByInstanceIdAndUsernameIn(instanceId, joined));
+                    List<UserPresence> rows = joined.stream()
+                            // Schon wieder getrennt: der Heartbeat würde die Zeile nur wieder löschen
+                            .filter(username -> !persisted.contains(username) && localSessions.containsKey(username))
+                            .map(username -> UserPresence.builder()
+                                    .username(username)
+                                    .instanceId(instanceId)
+                                    .lastHeartbeat(now)
+                                    .build())
+                            .toList();
+                    if (!rows.isEmpty()) {
+                        userPresenceRepository.saveAll(rows);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            // Der nächste Heartbeat holt die Einträge nach
+            logger.warn("Could not write presence of {} users: {}", joined.size(), e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+        localSessions.computeIfPresent(user.getName(), (name, sessions) -> {
+            sessions.remove(event.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * @return {@code true} if the user has a session that messages sent from this instance can reach
+     */
+    public boolean isOnline(String username) {
+        if (username == null) {
+            return false;
+        }
+        if (localSessions.containsKey(username)) {
+            return true;
+        }
+        return clustered && userPresenceRepository.existsByUsernameAndLastHeartbeatAfter(username, Instant.now().minus(ttl));
+    }
+
+    /**
+     * @return the given users that are connected to any instance
+     */
+    public Set<String> onlineUsernames(Collection<String> usernames) {
+        Set<String> online = new HashSet<>();
+        if (!clustered) {
+            usernames.stream().filter(localSessions::containsKey).forEach(online::add);
+            return online;
+        }
+        List<String> remaining = usernames.stream()
+                .filter(username -> {
+                    if (localSessions.containsKey(username)) {
+                        online.add(username);
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+        if (!remaining.isEmpty()) {
+            online.addAll(userPresenceRepository.findOnlineUsernames(remaining, Instant.now().minus(ttl)));
+        }
+        return online;
+    }
+
+    /**
+     * Writes the locally connected users to {@code user_presence} and removes rows of stopped instances.
+     * One short transaction; apart from joins and leaves it only updates this instance's heartbeat.
+     */
+    @Scheduled(fixedDelayString = "${presence.heartbeat-interval:15s}")
+    public void heartbeat() {
+        Instant now = Instant.now();
+        synchronized (writeLock) {
+            // Erst unter der Sperre lesen, sonst gälte ein gerade verbundener Benutzer als gegangen
+            Set<String> connected = new HashSet<>(localSessions.keySet());
+            transactionTemplate.executeWithoutResult(status -> {
+                List<String> persisted = userPresenceRepository.findUsernamesByInstanceId(instanceId);
+                List<String> left = persisted.stream().filter(username -> !connected.contains(username)).toList();
+                if (!left.isEmpty()) {
+                    userPresenceRepository.deleteByInstanceIdAndUsernameIn(instanceId, left);
+                }
+                userPresenceRepository.touchInstance(instanceId, now);
+                Set<String> known = new HashSet<>(persisted);
+                List<UserPresence> joined = connected.stream()
+                        .filter(username -> !known.contains(username))
+                        .map(username -> UserPresence.builder()
+                                .username(username)
+                                .instanceId(instanceId)
+                                .lastHeartbeat(now)
+                                .build())
+                        .toList();
+                if (!joined.isEmpty()) {
+                    userPresenceRepository.saveAll(joined);
+                }
+                int stale = userPresenceRepository.deleteStale(now.minus(ttl));
+                if (stale > 0) {
+                    logger.info("Removed {} presence entries of stopped instances", stale);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> userPresenceRepository.deleteByInstanceId(instanceId));
+        } catch (RuntimeException e) {
+            // Bleibt bis zum Ablauf der TTL stehen
+            logger.warn("Could not remove presence entries of instance {}: {}", instanceId, e.getMessage());
+        }
+    }
+}
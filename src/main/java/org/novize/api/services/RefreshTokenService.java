@@ -1,50 +1,131 @@
 package org.novize.api.services;
 
-import jakarta.validation.constraints.Email;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Size;
+import org.novize.api.enums.BrokerMode;
 import org.novize.api.exceptions.TokenRefreshException;
 import org.novize.api.exceptions.UserNotFoundException;
 import org.novize.api.model.RefreshToken;
+import org.novize.api.model.User;
 import org.novize.api.repository.RefreshTokenRepository;
+import org.novize.api.repository.RefreshTokenRepository.ActiveRefreshToken;
 import org.novize.api.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.UUID;
 
 /**
  * RefreshTokenService is a service class that handles operations related to refresh tokens.
  * It provides methods to create, find, and verify refresh tokens.
+ * <p>
+ * Only the SHA-256 hash of a token is stored. Active hashes are cached together with the user id and
+ * expiry date, so a refresh usually needs no query at all. Logout deletes the token and evicts it from the
+ * cache of this instance only, so when several instances share a broker ({@code websocket.broker.mode} other
+ * than {@code simple}) every lookup goes to the database and a revoked token is rejected on all of them.
  */
 @Service
 public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
 
     @Value("${security.jwt.refresh-token.expiration-time}")
     private long refreshTokenExpiration;
 
+    @Value("${security.jwt.refresh-token.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${security.jwt.refresh-token.cache.expire-after-write:1m}")
+    private Duration cacheExpireAfterWrite;
+
+    @Value("${websocket.broker.mode:simple}")
+    private BrokerMode brokerMode;
+
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
     @Autowired
     private UserRepository userRepository;
 
+    private final SecureRandom secureRandom = new SecureRandom();
+    // Token-Hash -> (User-ID, Ablaufdatum)
+    private Cache<String, ActiveRefreshToken> activeTokens;
+    // Mehrere Instanzen: Logout und Rotation der anderen kommen in diesem Cache nicht an
+    private boolean clustered;
+
+    @PostConstruct
+    void init() {
+        clustered = brokerMode != BrokerMode.SIMPLE;
+        activeTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .build();
+    }
+
     /**
      * Creates a new refresh token for a user.
      * @param username The username of the user for whom to create the refresh token.
      * @return The created refresh token.
      */
     public RefreshToken createRefreshToken(String username) {
+        return createRefreshToken(userRepository.findByEmail(username)
+                .orElseThrow(() -> new UserNotFoundException("User Not Found with username: " + username)));
+    }
+
+    /**
+     * Creates a new refresh token for an already loaded user.
+     * @param user The user for whom to create the refresh token.
+     * @return The created refresh token, {@link RefreshToken#getToken()} holds the raw token.
+     */
+    public RefreshToken createRefreshToken(User user) {
+        String token = generateToken();
+
         RefreshToken refreshToken = RefreshToken.builder()
-                .user(userRepository.findByEmail(username)
-                        .orElseThrow(() -> new UserNotFoundException("User Not Found with username: " + username)))
+                .user(user)
                 .createdDate(Instant.now())
-                .token(UUID.randomUUID().toString())
+                .token(token)
+                .tokenHash(JwtService.hash(token))
                 .expiryDate(Instant.now().plusMillis(refreshTokenExpiration))
                 .build();
-        return refreshTokenRepository.save(refreshToken);
+        RefreshToken saved = refreshTokenRepository.save(refreshToken);
+        activeTokens.put(refreshToken.getTokenHash(), new ActiveRefreshToken(user.getId(), refreshToken.getExpiryDate()));
+        return saved;
+    }
+
+    /**
+     * Issues a new refresh token for a user and replaces any previous one. Existing rows are updated in
+     * place, so a returning user costs one UPDATE; only the first login inserts.
+     *
+     * @param user the authenticated user
+     * @return the refresh token, {@link RefreshToken#getToken()} holds the raw token
+     */
+    @Transactional
+    public RefreshToken rotateRefreshToken(User user) {
+        String token = generateToken();
+        Instant now = Instant.now();
+        RefreshToken refreshToken = RefreshToken.builder()
+                .user(user)
+                .createdDate(now)
+                .token(token)
+                .tokenHash(JwtService.hash(token))
+                .expiryDate(now.plusMillis(refreshTokenExpiration))
+                .build();
+
+        int updated = refreshTokenRepository.rotateForUser(user.getId(), refreshToken.getTokenHash(),
+                refreshToken.getCreatedDate(), refreshToken.getExpiryDate());
+        if (updated == 0) {
+            refreshToken = refreshTokenRepository.save(refreshToken);
+        } else {
+            evictUser(user.getId());
+        }
+        activeTokens.put(refreshToken.getTokenHash(), new ActiveRefreshToken(user.getId(), refreshToken.getExpiryDate()));
+        return refreshToken;
     }
 
     /**
@@ -54,7 +135,58 @@ public class RefreshTokenService {
      * @return an {@link Optional} containing the matching {@link RefreshToken} if found, or empty if no match is found
      */
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        return refreshTokenRepository.findByTokenHash(JwtService.hash(token));
+    }
+
+    /**
+     * Resolves the user a refresh token was issued to, served from the cache when possible.
+     *
+     * @param token the raw refresh token
+     * @return the id of the user, or empty if the token is unknown
+     */
+    public Optional<String> findUserIdByToken(String token) {
+        return findActive(JwtService.hash(token)).map(ActiveRefreshToken::userId);
+    }
+
+    /**
+     * Resolves and verifies a refresh token. The user is loaded by id and therefore usually comes
+     * from the second-level cache.
+     *
+     * @param token the raw refresh token
+     * @return the user the token was issued to, or empty if the token is unknown
+     * @throws TokenRefreshException if the token is expired, it is deleted in that case
+     */
+    public Optional<User> findUserByValidToken(String token) {
+        String hash = JwtService.hash(token);
+        Optional<ActiveRefreshToken> active = findActive(hash);
+        if (active.isEmpty()) {
+            return Optional.empty();
+        }
+        if (active.get().expiryDate().isBefore(Instant.now())) {
+            activeTokens.invalidate(hash);
+            refreshTokenRepository.deleteByTokenHash(hash);
+            throw new TokenRefreshException(hash, "Refresh token was expired. Please make a new sign-in request");
+        }
+        return userRepository.findById(active.get().userId());
+    }
+
+    private String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private Optional<ActiveRefreshToken> findActive(String hash) {
+        if (clustered) {
+            return refreshTokenRepository.findActiveByTokenHash(hash);
+        }
+        ActiveRefreshToken cached = activeTokens.getIfPresent(hash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<ActiveRefreshToken> loaded = refreshTokenRepository.findActiveByTokenHash(hash);
+        loaded.ifPresent(active -> activeTokens.put(hash, active));
+        return loaded;
     }
 
     public Optional<RefreshToken> findByUserId(@NotBlank(message = "id is required") String id) {
@@ -73,7 +205,8 @@ public class RefreshTokenService {
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
             refreshTokenRepository.delete(token);
-            throw new TokenRefreshException(token.getToken(), "Refresh token was expired. Please make a new sign-in request");
+            activeTokens.invalidate(token.getTokenHash());
+            throw new TokenRefreshException(token.getTokenHash(), "Refresh token was expired. Please make a new sign-in request");
         }
         return token;
     }
@@ -82,6 +215,12 @@ public class RefreshTokenService {
 
     public void deleteByUserId(String id) {
         refreshTokenRepository.deleteByUserId(id);
+        evictUser(id);
+    }
+
+    private void evictUser(String userId) {
+        // Höchstens ein Token pro Benutzer, ein Durchlauf über den begrenzten Cache genügt
+        activeTokens.asMap().values().removeIf(active -> active.userId().equals(userId));
     }
 
 }
\ No newline at end of file
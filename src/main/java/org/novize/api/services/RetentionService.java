@@ -0,0 +1,179 @@
+package org.novize.api.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.repository.NotificationRepository;
+import org.novize.api.repository.NotificationRepository.NotificationKey;
+import org.novize.api.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes expired refresh tokens and aged, read notifications in the background.
+ * <p>
+ * Rows are selected in small keyset batches and deleted by primary key, each batch in its own short
+ * transaction followed by a pause. MariaDB therefore only ever holds row locks on one batch and
+ * concurrent logins and notification reads are not blocked by the cleanup.
+ */
+@Service
+public class RetentionService {
+    private static final Logger logger = LogManager.getLogger(RetentionService.class);
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${retention.batch-size:500}")
+    private int batchSize;
+    @Value("${retention.batch-pause:200ms}")
+    private Duration batchPause;
+    @Value("${retention.refresh-tokens.enabled:true}")
+    private boolean refreshTokensEnabled;
+    @Value("${retention.notifications.enabled:true}")
+    private boolean notificationsEnabled;
+    @Value("${retention.notifications.read-max-age:30d}")
+    private Duration readNotificationMaxAge;
+
+    public RetentionService(RefreshTokenRepository refreshTokenRepository,
+                            NotificationRepository notificationRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs all enabled cleanups, by default nightly.
+     */
+    @Scheduled(cron = "${retention.cron:0 30 3 * * *}")
+    public void purge() {
+        if (refreshTokensEnabled) {
+            purgeExpiredRefreshTokens();
+        }
+        if (notificationsEnabled) {
+            purgeReadNotifications();
+        }
+    }
+
+    /**
+     * Deletes all refresh tokens whose expiry date has passed.
+     *
+     * @return the number of deleted tokens
+     */
+    public long purgeExpiredRefreshTokens() {
+        Instant now = Instant.now();
+        return measure("refresh-tokens", () -> {
+            long deleted = 0;
+            int lastId = Integer.MIN_VALUE;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Integer> ids = refreshTokenRepository.findExpiredIds(now, lastId, batch());
+                if (ids.isEmpty()) {
+                    break;
+                }
+                deleted += countDeleted("refresh-tokens",
+                        transactionTemplate.execute(status -> refreshTokenRepository.deleteByIdIn(ids)));
+                lastId = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize || !pause()) {
+                    break;
+                }
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Deletes read notifications older than {@code retention.notifications.read-max-age}.
+     *
+     * @return the number of deleted notifications
+     */
+    public long purgeReadNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(readNotificationMaxAge);
+        return measure("notifications", () -> {
+            long deleted = 0;
+            NotificationKey last = new NotificationKey("", KEYSET_START);
+            while (!Thread.currentThread().isInterrupted()) {
+                List<NotificationKey> keys = notificationRepository.findReadCreatedBefore(
+                        cutoff, last.createdAt(), last.id(), batch());
+                if (keys.isEmpty()) {
+                    break;
+                }
+                List<String> ids = keys.stream().map(NotificationKey::id).toList();
+                deleted += countDeleted("notifications",
+                        transactionTemplate.execute(status -> notificationRepository.deleteByIdIn(ids)));
+                last = keys.get(keys.size() - 1);
+                if (keys.size() < batchSize || !pause()) {
+                    break;
+                }
+            }
+            return deleted;
+        });
+    }
+
+    private long measure(String type, LongSupplier cleanup) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean success = false;
+        long deleted = 0;
+        try {
+            deleted = cleanup.getAsLong();
+            success = true;
+            return deleted;
+        } finally {
+            long nanos = sample.stop(Timer.builder("retention.run")
+                    .description("Duration of a retention run")
+                    .tag("type", type)
+                    .tag("outcome", success ? "success" : "failure")
+                    .register(meterRegistry));
+            if (success) {
+                logger.info("Retention: deleted {} {} in {} ms", deleted, type, Duration.ofNanos(nanos).toMillis());
+            } else {
+                logger.error("Retention run for {} failed after {} ms", type, Duration.ofNanos(nanos).toMillis());
+            }
+        }
+    }
+
+    // Pro Batch zählen, damit auch abgebrochene Läufe ihren Fortschritt melden
+    private int countDeleted(String type, Integer deleted) {
+        int count = deleted == null ? 0 : deleted;
+        meterRegistry.counter("retention.deleted", "type", type).increment(count);
+        return count;
+    }
+
+    private Pageable batch() {
+        return PageRequest.of(0, batchSize);
+    }
+
+    /**
+     * Gives concurrent transactions room between two batches.
+     *
+     * @return false if the thread was interrupted and the run should stop
+     */
+    private boolean pause() {
+        if (batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.novize.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.exceptions.UserNotFoundException;
+import org.novize.api.model.User;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Keeps the security stamp of each user in memory. Access tokens carry the stamp they were issued with,
+ * a token whose stamp differs from the current one has been revoked.
+ * <p>
+ * Revocations on this instance take effect immediately, other instances pick them up once their
+ * cached stamp expires.
+ */
+@Service
+public class SecurityStampService {
+    private static final Logger logger = LogManager.getLogger(SecurityStampService.class);
+    // Stamp für nicht (mehr) existierende Benutzer, passt zu keinem Token
+    private static final long UNKNOWN_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> stamps;
+
+    public SecurityStampService(UserRepository userRepository,
+                                @Value("${security.jwt.stamp-cache.expire-after-write:1m}") Duration expireAfterWrite,
+                                @Value("${security.jwt.stamp-cache.maximum-size:100000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.stamps = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * @param userId the id of the user
+     * @return the current security stamp of the user
+     */
+    public long currentStamp(String userId) {
+        return stamps.get(userId, id -> userRepository.findSecurityStampById(id).orElse(UNKNOWN_USER));
+    }
+
+    /**
+     * Checks whether a token issued with the given stamp is still valid.
+     */
+    public boolean isCurrent(String userId, long stamp) {
+        return currentStamp(userId) == stamp;
+    }
+
+    /**
+     * Invalidates all access tokens issued to the user so far.
+     *
+     * @param userId the id of the user
+     */
+    @Transactional
+    public void revoke(String userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        long stamp = user.getSecurityStamp() + 1;
+        user.setSecurityStamp(stamp);
+        userRepository.save(user);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stamps.put(userId, stamp);
+            }
+        });
+        logger.info("Revoked access tokens of user {}", userId);
+    }
+}
@@ -0,0 +1,170 @@
+package org.novize.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Answers "may this user access / own this task?" without loading the task, its sharedWith collection or the
+ * user, the checks only take the id of the user.
+ * <p>
+ * Keeps an in-memory index task id &rarr; (owner id, sorted array of shared user ids). Missing entries are
+ * loaded with a single scalar query, afterwards every check is a hash lookup plus a binary search.
+ * The index is updated after commit whenever a task is created, shared, unshared or deleted.
+ * <p>
+ * Only a single instance ({@code websocket.broker.mode=simple}) sees every change. With a relay or embedded
+ * broker several instances share the database, an unshare on one of them would leave the index of the others
+ * granting access. The index is then not used and every check runs the scalar query.
+ */
+@Service
+public class TaskPermissionService {
+    private static final Logger logger = LogManager.getLogger(TaskPermissionService.class);
+    private static final String[] NO_USERS = new String[0];
+
+    private final TaskRepository taskRepository;
+    private final Cache<String, TaskPermissions> index;
+    // Mehrere Instanzen: Änderungen der anderen kommen hier nicht an
+    private final boolean clustered;
+
+    public TaskPermissionService(TaskRepository taskRepository,
+                                 @Value("${websocket.broker.mode:simple}") BrokerMode brokerMode,
+                                 @Value("${cache.task-permissions.maximum-size:100000}") long maximumSize,
+                                 @Value("${cache.task-permissions.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.taskRepository = taskRepository;
+        this.clustered = brokerMode != BrokerMode.SIMPLE;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * @throws EntityNotFoundException if the task does not exist
+     * @throws AccessDeniedException   if the user is neither owner of the task nor is the task shared with him
+     */
+    public void checkAccess(String taskId, String userId) {
+        if (!getPermissions(taskId).hasAccess(userId)) {
+            throw new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe");
+        }
+    }
+
+    /**
+     * @throws EntityNotFoundException if the task does not exist
+     * @throws AccessDeniedException   if the user is not the owner of the task
+     */
+    public void checkOwner(String taskId, String userId) {
+        TaskPermissions permissions = getPermissions(taskId);
+        if (!permissions.hasAccess(userId)) {
+            throw new AccessDeniedException("Kein Zugriff auf diese Aufgabe");
+        }
+        if (!permissions.isOwner(userId)) {
+            throw new AccessDeniedException("Nur der Eigentümer kann diese Aufgabe ändern");
+        }
+    }
+
+    public boolean hasAccess(String taskId, String userId) {
+        TaskPermissions permissions = lookup(taskId);
+        return permissions != null && permissions.hasAccess(userId);
+    }
+
+    public boolean isOwner(String taskId, String userId) {
+        TaskPermissions permissions = lookup(taskId);
+        return permissions != null && permissions.isOwner(userId);
+    }
+
+    /**
+     * Stores the current owner and shared users of a task, e.g. after it was created or its sharing changed.
+     * Inside a transaction the index is only updated after a successful commit. Does nothing if the index is
+     * not used because several instances share the database.
+     *
+     * @param task the task, its sharedWith collection must be initialized
+     */
+    public void update(Task task) {
+        if (clustered) {
+            return;
+        }
+        String[] sharedUserIds = task.getSharedWith() == null ? NO_USERS : task.getSharedWith().stream()
+                .map(User::getId)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toArray(String[]::new);
+        TaskPermissions permissions = new TaskPermissions(task.getUser().getId(), sharedUserIds);
+        String taskId = task.getId();
+        afterCommit(() -> index.put(taskId, permissions));
+    }
+
+    /**
+     * Removes a deleted task from the index.
+     *
+     * @param taskId the id of the deleted task
+     */
+    public void remove(String taskId) {
+        afterCommit(() -> index.invalidate(taskId));
+    }
+
+    private TaskPermissions getPermissions(String taskId) {
+        TaskPermissions permissions = lookup(taskId);
+        if (permissions == null) {
+            throw new EntityNotFoundException("Task not found with id: " + taskId);
+        }
+        return permissions;
+    }
+
+    private TaskPermissions lookup(String taskId) {
+        return clustered ? load(taskId) : index.get(taskId, this::load);
+    }
+
+    private TaskPermissions load(String taskId) {
+        List<Object[]> rows = taskRepository.findPermissionRows(taskId);
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+        String ownerId = (String) rows.getFirst()[0];
+        String[] sharedUserIds = rows.stream()
+                .map(row -> (String) row[1])
+                .filter(Objects::nonNull)
+                .sorted()
+                .toArray(String[]::new);
+        logger.debug("Loaded permissions of task {}: owner {}, {} shared users", taskId, ownerId, sharedUserIds.length);
+        return new TaskPermissions(ownerId, sharedUserIds);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record TaskPermissions(String ownerId, String[] sharedUserIds) {
+        boolean isOwner(String userId) {
+            return userId != null && userId.equals(ownerId);
+        }
+
+        boolean hasAccess(String userId) {
+            return isOwner(userId) || (userId != null && Arrays.binarySearch(sharedUserIds, userId) >= 0);
+        }
+    }
+}
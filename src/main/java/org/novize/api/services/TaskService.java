@@ -1,17 +1,23 @@
 package org.novize.api.services;
 
 
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.CreateTaskDto;
 import org.novize.api.dtos.task.TaskDto;
 import org.novize.api.dtos.task.TaskListDto;
+import org.novize.api.dtos.task.TaskSummaryDto;
+import org.novize.api.dtos.task.TaskSummaryListDto;
 import org.novize.api.dtos.task.UpdateTaskDto;
 import org.novize.api.dtos.timer.TimerUpdateDto;
 import org.novize.api.enums.Relation;
+import org.novize.api.enums.TaskField;
 import org.novize.api.model.Task;
-import org.novize.api.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service interface for managing tasks. Provides methods for creating, updating,
@@ -32,21 +38,29 @@ public interface TaskService {
 
    TaskDto getById(String id);
 
-   TaskListDto search(String name, int page, int pageSize, User user);
+   TaskListDto search(String name, int page, int pageSize, AuthenticatedUser user);
+
+   Page<Task> findByName(String name, int page, int pageSize, AuthenticatedUser user);
 
 
    void deleteById(String id);
 
-   List<TaskDto> getTasksByUserAndRelation(User user, Relation relation);
+   List<TaskDto> getTasksByUserAndRelation(AuthenticatedUser user, Relation relation);
+
+   List<Task> findTaskChunkByUserAndRelation(AuthenticatedUser user, Relation relation, Task after, Pageable chunk);
+
+   List<TaskSummaryDto> getTaskSummariesByUserAndRelation(AuthenticatedUser user, Relation relation, Set<TaskField> fields);
+
+   TaskSummaryListDto searchSummaries(String name, int page, int pageSize, AuthenticatedUser user, Set<TaskField> fields);
 
-   Task manageTaskSharing(String taskId, String username, User currentUser, boolean isSharing);
+   Task manageTaskSharing(String taskId, String username, AuthenticatedUser currentUser, boolean isSharing);
 
 
-   TaskDto startTimer(String id, User currentUser);
+   TaskDto startTimer(String id, AuthenticatedUser currentUser);
 
-   TaskDto pauseTimer(String id, User currentUser);
+   TaskDto pauseTimer(String id, AuthenticatedUser currentUser);
 
-   TaskDto resetTimer(String id, User currentUser);
+   TaskDto resetTimer(String id, AuthenticatedUser currentUser);
 
-   TaskDto updateTimer(String id, TimerUpdateDto timerUpdateDto, User currentUser);
+   TaskDto updateTimer(String id, TimerUpdateDto timerUpdateDto, AuthenticatedUser currentUser);
 }
@@ -3,17 +3,24 @@ package org.novize.api.services;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Hibernate;
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.CreateTaskDto;
 import org.novize.api.dtos.task.TaskDto;
 import org.novize.api.dtos.task.TaskListDto;
+import org.novize.api.dtos.task.TaskSummaryDto;
+import org.novize.api.dtos.task.TaskSummaryListDto;
 import org.novize.api.dtos.task.UpdateTaskDto;
 import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.dtos.user.UserDto;
 import org.novize.api.enums.NotificationType;
 import org.novize.api.enums.Relation;
+import org.novize.api.enums.TaskField;
 import org.novize.api.enums.TaskVisibility;
 import org.novize.api.exceptions.InvalidRequestException;
 import org.novize.api.exceptions.UserNotFoundException;
 import org.novize.api.mapper.TaskMapper;
+import org.novize.api.mapper.UserMapper;
 import org.novize.api.model.Task;
 import org.novize.api.model.User;
 import org.novize.api.repository.TaskRepository;
@@ -26,15 +33,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -52,15 +56,17 @@ public class TaskServiceImpl implements TaskService {
     @Autowired
     TaskMapper taskMapper;
     @Autowired
-    FriendshipService friendshipService;
+    UserMapper userMapper;
     @Autowired
-    UserDetailsService userDetailsService;
+    FriendshipService friendshipService;
     @Autowired
     UserService userService;
     @Autowired
     NotificationService notificationService;
     @Autowired
     TimerNotificationService timerNotificationService;
+    @Autowired
+    TaskPermissionService taskPermissionService;
 
     @Override
     public Task findById(String id) {
@@ -77,10 +83,12 @@ public class TaskServiceImpl implements TaskService {
      */
     @Override
     public TaskDto create(CreateTaskDto taskDto) {
-        User user = getUser();
+        AuthenticatedUser user = getUser();
         if (user == null) throw new RuntimeException("User not found");
-        var task = new Task(taskDto.getName(), taskDto.getDescription(), taskDto.getUrgency(), taskDto.getDueDate(), user);
+        var task = new Task(taskDto.getName(), taskDto.getDescription(), taskDto.getUrgency(), taskDto.getDueDate(),
+                reference(user));
         var newTask = taskRepository.save(task);
+        taskPermissionService.update(newTask);
         return TaskDto.builder()
                 .id(newTask.getId())
                 .name(newTask.getName())
@@ -94,29 +102,29 @@ public class TaskServiceImpl implements TaskService {
     }
 
     /**
-     * Retrieves the currently authenticated user from the security context.
-     * The method fetches the user's authentication details, validates the associated username, and loads the user
-     * from the user details service. If any step fails (e.g., missing or invalid username, user not found),
-     * it logs the error and returns null.
+     * Retrieves the currently authenticated user from the security context. The principal already carries the id
+     * and username, the user is not loaded. If there is no authenticated user, it logs the error and returns null.
      *
-     * @return the authenticated {@link User} object if successfully retrieved; otherwise, returns null
+     * @return the authenticated {@link AuthenticatedUser} if present; otherwise, returns null
      */
-    private User getUser() {
+    private AuthenticatedUser getUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        if (username == null || username.isEmpty()) {
-            logger.error("Username is null or empty");
-            return null;
-        }
-
-        User user = (User) userDetailsService.loadUserByUsername(username);
-        if (user == null) {
-            logger.error("User not found in the repository");
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            logger.error("No authenticated user in the security context");
             return null;
         }
         return user;
     }
 
+    private static String userId(AuthenticatedUser user) {
+        return user != null ? user.id() : null;
+    }
+
+    // Referenz ohne SELECT, die Abfragen und der Besitzer eines neuen Tasks brauchen nur die ID
+    private User reference(AuthenticatedUser user) {
+        return userRepository.getReferenceById(user.id());
+    }
+
 
     /**
      * Toggles the "completed" status of a task identified by its unique ID.
@@ -131,14 +139,19 @@ public class TaskServiceImpl implements TaskService {
     @Override
     public Task toggleCompleted(String id) {
         Optional<Task> optionalTask = taskRepository.findById(id);
-        User user = getUser();
+        AuthenticatedUser currentUser = getUser();
         if (optionalTask.isEmpty()) {
             throw new EntityNotFoundException("Task not found with id: " + id);
         }
         Task task = optionalTask.get();
-        if (user == null) {
+        if (currentUser == null) {
             throw new UserNotFoundException("User not found");
         }
+        taskPermissionService.checkAccess(id, currentUser.id());
+
+        // Der Benutzer wird nur hier geladen, für die XP-Änderung
+        User user = userRepository.findById(currentUser.id())
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
 
         // Nur XP vergeben, wenn die Aufgabe von nicht abgeschlossen zu abgeschlossen wechselt
         if (!task.getCompleted()) {
@@ -169,6 +182,7 @@ public class TaskServiceImpl implements TaskService {
     @Override
     public TaskDto update(String id, UpdateTaskDto taskDto) {
         // TODO: Exception Handling
+        taskPermissionService.checkAccess(id, userId(getUser()));
         Task task = taskRepository.findById(id).orElseThrow(() -> new RuntimeException("Task not found"));
 
         // Check if updateDto fields are not null or not same as existing values else change to new values
@@ -217,6 +231,8 @@ public class TaskServiceImpl implements TaskService {
     @Override
     @Transactional
     public TaskDto getById(String id) {
+        AuthenticatedUser user = getUser();
+        taskPermissionService.checkAccess(id, userId(user));
 
         Optional<Task> optional = taskRepository.findById(id);
         var task = optional.orElse(null);
@@ -224,35 +240,25 @@ public class TaskServiceImpl implements TaskService {
             throw new EntityNotFoundException("Task not found");
         }
 
-        return taskMapper.toDto(task, getUser());
+        return taskMapper.toDto(task, user);
 
     }
 
 
     /**
-     * Searches for tasks based on a provided query string and returns a paginated list of tasks.
-     * If no query is provided, all tasks are retrieved in a paginated manner.
+     * Searches the tasks the user owns or that are shared with the user and returns a paginated list of tasks.
+     * If no query is provided, all of these tasks are retrieved in a paginated manner.
      *
-     * @param query    the search term to filter tasks by their names (case-insensitive). If null or empty, all tasks are returned.
+     * @param query    the search term to filter tasks by their names (case-insensitive). If null or empty, all accessible tasks are returned.
      * @param page     the page number to retrieve, starting from 1.
      * @param pageSize the number of tasks to display per page.
      * @return a {@link TaskListDto} containing the tasks matching the search criteria,
      * along with pagination information such as the total number of pages and count of tasks.
      */
     @Override
-    public TaskListDto search(String query, int page, int pageSize, User user) {
-
-        Page<Task> tasks;
-        final Pageable request = PageRequest.of(page - 1, pageSize, Sort.by("createdAt"));
-        if (query == null || query.isEmpty()) {
-            tasks = taskRepository.findAll(request);
-
-            tasks.getTotalPages();
-        } else {
-            //Search by name return paginated results
+    public TaskListDto search(String query, int page, int pageSize, AuthenticatedUser user) {
 
-            tasks = taskRepository.findByNameContainingIgnoreCase(query, request);
-        }
+        Page<Task> tasks = findByName(query, page, pageSize, user);
 
         // Map tasks to TaskDto
 
@@ -269,14 +275,38 @@ public class TaskServiceImpl implements TaskService {
 
     }
 
+    /**
+     * Retrieves a page of task entities with the same semantics as {@link #search(String, int, int, AuthenticatedUser)}.
+     * The shared users of every task are initialized, so the page can still be serialized after the transaction.
+     *
+     * @param query    the search term, null or empty for all tasks the user can access
+     * @param page     the page number to retrieve, starting from 1
+     * @param pageSize the number of tasks per page
+     * @param user     the user whose owned and shared tasks are searched
+     * @return the requested page of tasks
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Task> findByName(String query, int page, int pageSize, AuthenticatedUser user) {
+        final Pageable request = PageRequest.of(page - 1, pageSize, Sort.by("createdAt"));
+        // Nur eigene und geteilte Tasks, wie in der normalen Task-Liste
+        Page<Task> tasks = taskRepository.searchTasksForUser(reference(user), query == null ? "" : query, request);
+        tasks.forEach(task -> Hibernate.initialize(task.getSharedWith()));
+        return tasks;
+    }
+
     /**
      * Deletes a task identified by its unique ID from the repository.
+     * Only the owner of the task may delete it.
      *
      * @param id the unique identifier of the task to be deleted
+     * @throws AccessDeniedException if the current user is not the owner of the task
      */
     @Override
     public void deleteById(String id) {
+        taskPermissionService.checkOwner(id, userId(getUser()));
         taskRepository.deleteById(id);
+        taskPermissionService.remove(id);
     }
 
     /**
@@ -293,25 +323,29 @@ public class TaskServiceImpl implements TaskService {
      * @return the updated {@link Task} entity after processing the sharing action
      */
     @Override
-    public Task manageTaskSharing(String taskId, String username, User currentUser, boolean isSharing) {
+    public Task manageTaskSharing(String taskId, String username, AuthenticatedUser currentUser, boolean isSharing) {
         Task task = findAndValidateTask(taskId, currentUser);
         User targetUser = findTargetUser(username);
 
         updateTaskSharing(task, targetUser, isSharing);
         updateTaskVisibility(task);
 
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        taskPermissionService.update(savedTask);
+        // Laufender Timer: Snapshot-Zuschauer anpassen, die Ticks laden sharedWith nicht neu
+        timerNotificationService.updateTimerViewers(savedTask);
+        return savedTask;
     }
 
-    private Task findAndValidateTask(String taskId, User currentUser) {
+    private Task findAndValidateTask(String taskId, AuthenticatedUser currentUser) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new InvalidRequestException("Aufgabe mit ID " + taskId + " nicht gefunden"));
 
-        if (task.hasNoAccess(currentUser)) {
+        if (!taskPermissionService.hasAccess(taskId, currentUser.id())) {
             throw new AccessDeniedException("Kein Zugriff auf diese Aufgabe");
         }
 
-        if (!task.isOwner(currentUser)) {
+        if (!taskPermissionService.isOwner(taskId, currentUser.id())) {
             throw new AccessDeniedException("Nur der Eigentümer kann diese Aufgabe teilen oder das Teilen aufheben");
         }
 
@@ -344,29 +378,99 @@ public class TaskServiceImpl implements TaskService {
 
 
     @Override
-    public List<TaskDto> getTasksByUserAndRelation(User currentUser, Relation relation) {
+    public List<TaskDto> getTasksByUserAndRelation(AuthenticatedUser currentUser, Relation relation) {
         List<Task> tasks = fetchTasksByType(currentUser, relation);
         return convertTasksToDto(tasks, currentUser);
     }
 
-    private List<Task> fetchTasksByType(User currentUser, Relation relation) {
+    /**
+     * Loads the next chunk of the tasks of a user ordered by id, same selection as {@link #getTasksByUserAndRelation}.
+     *
+     * @param after the last task of the previous chunk, {@code null} for the first chunk
+     */
+    @Override
+    public List<Task> findTaskChunkByUserAndRelation(AuthenticatedUser currentUser, Relation relation, Task after, Pageable chunk) {
+        String afterId = after == null ? "" : after.getId();
         if (relation == null) {
-            return taskRepository.findTasksForUser(currentUser);
+            return taskRepository.findTasksForUserAfter(reference(currentUser), afterId, chunk);
         }
 
         return switch (relation) {
-            case Relation.OWNED -> taskRepository.findByUserId(currentUser.getId(), Sort.by("createdAt"));
-            case Relation.SHARED -> taskRepository.findSharedWithUser(currentUser);
-            default -> taskRepository.findTasksForUser(currentUser);
+            case Relation.OWNED -> taskRepository.findByUserIdAfter(currentUser.id(), afterId, chunk);
+            case Relation.SHARED -> taskRepository.findSharedWithUserAfter(reference(currentUser), afterId, chunk);
+            default -> taskRepository.findTasksForUserAfter(reference(currentUser), afterId, chunk);
         };
     }
 
-    private List<TaskDto> convertTasksToDto(List<Task> tasks, User currentUser) {
+    private List<Task> fetchTasksByType(AuthenticatedUser currentUser, Relation relation) {
+        if (relation == null) {
+            return taskRepository.findTasksForUser(reference(currentUser));
+        }
+
+        return switch (relation) {
+            case Relation.OWNED -> taskRepository.findByUserId(currentUser.id(), Sort.by("createdAt"));
+            case Relation.SHARED -> taskRepository.findSharedWithUser(reference(currentUser));
+            default -> taskRepository.findTasksForUser(reference(currentUser));
+        };
+    }
+
+    private List<TaskDto> convertTasksToDto(List<Task> tasks, AuthenticatedUser currentUser) {
         return tasks.stream()
                 .map(task -> taskMapper.toDto(task, currentUser))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves lean task summaries for list views. Only the columns of {@link TaskSummaryDto} are selected,
+     * the shared users are loaded with a single additional query and only if {@link TaskField#SHARED_WITH}
+     * is requested.
+     *
+     * @param currentUser the authenticated user
+     * @param relation    the relation of the tasks to the user, null for owned and shared tasks
+     * @param fields      the requested fields
+     * @return the task summaries containing only the requested fields
+     */
+    @Override
+    public List<TaskSummaryDto> getTaskSummariesByUserAndRelation(AuthenticatedUser currentUser, Relation relation, Set<TaskField> fields) {
+        List<TaskSummaryDto> summaries = relation == null
+                ? taskRepository.findTaskSummariesForUser(reference(currentUser))
+                : switch (relation) {
+                    case Relation.OWNED -> taskRepository.findTaskSummariesByUserId(currentUser.id());
+                    case Relation.SHARED -> taskRepository.findSharedTaskSummaries(reference(currentUser));
+                    default -> taskRepository.findTaskSummariesForUser(reference(currentUser));
+                };
+        return applyFields(summaries, fields);
+    }
+
+    /**
+     * Paginated variant of {@link #getTaskSummariesByUserAndRelation} with the same search semantics as
+     * {@link #search(String, int, int, AuthenticatedUser)}: only tasks the user owns or that are shared with the user.
+     */
+    @Override
+    public TaskSummaryListDto searchSummaries(String query, int page, int pageSize, AuthenticatedUser user, Set<TaskField> fields) {
+        final Pageable request = PageRequest.of(page - 1, pageSize, Sort.by("createdAt"));
+        Page<TaskSummaryDto> summaries = taskRepository.searchTaskSummariesForUser(reference(user), query == null ? "" : query, request);
+
+        return TaskSummaryListDto.builder()
+                .tasks(applyFields(summaries.getContent(), fields))
+                .pages(summaries.getTotalPages())
+                .count(summaries.getTotalElements())
+                .build();
+    }
+
+    private List<TaskSummaryDto> applyFields(List<TaskSummaryDto> summaries, Set<TaskField> fields) {
+        if (fields.contains(TaskField.SHARED_WITH) && !summaries.isEmpty()) {
+            // Gleiche Form wie TaskDto.sharedWith
+            Map<String, List<UserDto>> sharedWith = new HashMap<>();
+            for (Object[] row : taskRepository.findSharedUsers(summaries.stream().map(TaskSummaryDto::getId).toList())) {
+                sharedWith.computeIfAbsent((String) row[0], id -> new ArrayList<>()).add(userMapper.toDto((User) row[1]));
+            }
+            summaries.forEach(summary -> summary.setSharedWith(sharedWith.getOrDefault(summary.getId(), Collections.emptyList())));
+        }
+        summaries.forEach(summary -> summary.retain(fields));
+        return summaries;
+    }
+
 
     /**
      * Starts the timer for a specific task. This method activates the timer for the given task,
@@ -379,11 +483,9 @@ public class TaskServiceImpl implements TaskService {
      * @throws AccessDeniedException if the current user does not have access to the given task
      */
     @Override
-    public TaskDto startTimer(String taskId, User currentUser) {
+    public TaskDto startTimer(String taskId, AuthenticatedUser currentUser) {
+        taskPermissionService.checkAccess(taskId, currentUser.id());
         Task task = findById(taskId);
-        if (task.hasNoAccess(currentUser)) {
-            throw new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe");
-        }
 
         // Standardwert setzen, falls nicht gesetzt
         if (task.getPomodoroTimeMillis() == null) {
@@ -403,7 +505,7 @@ public class TaskServiceImpl implements TaskService {
         TimerUpdateDto timerUpdateDto = new TimerUpdateDto();
         timerUpdateDto.setRemainingTimeMillis(updatedTask.getRemainingTimeMillis());
         timerUpdateDto.setTimerActive(updatedTask.getTimerActive());
-        timerNotificationService.sendTimerUpdate(taskId, timerUpdateDto);
+        timerNotificationService.sendTimerUpdate(updatedTask, timerUpdateDto);
 
         return taskMapper.toDto(updatedTask, currentUser);
     }
@@ -418,11 +520,9 @@ public class TaskServiceImpl implements TaskService {
      * @throws AccessDeniedException if the user is not the owner or not shared on the task
      */
     @Override
-    public TaskDto pauseTimer(String taskId, User currentUser) {
+    public TaskDto pauseTimer(String taskId, AuthenticatedUser currentUser) {
+        taskPermissionService.checkAccess(taskId, currentUser.id());
         Task task = findById(taskId);
-        if (task.hasNoAccess(currentUser)) {
-            throw new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe");
-        }
 
         // Berechne verstrichene Zeit und aktualisiere verbleibende Zeit
         LocalDateTime now = LocalDateTime.now();
@@ -436,8 +536,13 @@ public class TaskServiceImpl implements TaskService {
         }
 
         task.setTimerActive(false);
+        Task updatedTask = taskRepository.save(task);
 
-        return taskMapper.toDto(taskRepository.save(task), currentUser);
+        // Zuschauer und Snapshot-Cache erfahren von der Pause
+        timerNotificationService.sendTimerUpdate(updatedTask,
+                new TimerUpdateDto(updatedTask.getRemainingTimeMillis(), updatedTask.getTimerActive()));
+
+        return taskMapper.toDto(updatedTask, currentUser);
     }
 
     /**
@@ -451,11 +556,9 @@ public class TaskServiceImpl implements TaskService {
      *                               or does not have shared access to it
      */
     @Override
-    public TaskDto resetTimer(String taskId, User currentUser) {
+    public TaskDto resetTimer(String taskId, AuthenticatedUser currentUser) {
+        taskPermissionService.checkAccess(taskId, currentUser.id());
         Task task = findById(taskId);
-        if (task.hasNoAccess(currentUser)) {
-            throw new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe");
-        }
 
         // Standardwert setzen, falls nicht gesetzt
         if (task.getPomodoroTimeMillis() == null) {
@@ -470,7 +573,7 @@ public class TaskServiceImpl implements TaskService {
         TimerUpdateDto timerUpdateDto = new TimerUpdateDto();
         timerUpdateDto.setTimerActive(updatedTask.getTimerActive());
         timerUpdateDto.setRemainingTimeMillis(updatedTask.getRemainingTimeMillis());
-        timerNotificationService.sendTimerUpdate(taskId, timerUpdateDto);
+        timerNotificationService.sendTimerUpdate(updatedTask, timerUpdateDto);
 
 
         return taskMapper.toDto(updatedTask, currentUser);
@@ -490,11 +593,9 @@ public class TaskServiceImpl implements TaskService {
      *                               nor included in the task's shared list
      */
     @Override
-    public TaskDto updateTimer(String taskId, TimerUpdateDto timerUpdateDto, User currentUser) {
+    public TaskDto updateTimer(String taskId, TimerUpdateDto timerUpdateDto, AuthenticatedUser currentUser) {
+        taskPermissionService.checkAccess(taskId, currentUser.id());
         Task task = findById(taskId);
-        if (task.hasNoAccess(currentUser)) {
-            throw new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe");
-        }
 
         // Aktualisiere verbleibende Zeit, falls angegeben
         if (timerUpdateDto.getRemainingTimeMillis() != null) {
@@ -521,8 +622,12 @@ public class TaskServiceImpl implements TaskService {
                 task.setLastTimerUpdateTimestamp(LocalDateTime.now());
             }
         }
+        Task updatedTask = taskRepository.save(task);
+
+        timerNotificationService.sendTimerUpdate(updatedTask,
+                new TimerUpdateDto(updatedTask.getRemainingTimeMillis(), updatedTask.getTimerActive()));
 
-        return taskMapper.toDto(taskRepository.save(task), currentUser);
+        return taskMapper.toDto(updatedTask, currentUser);
     }
 
 }
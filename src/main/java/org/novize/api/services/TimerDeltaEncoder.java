@@ -0,0 +1,75 @@
+package org.novize.api.services;
+
+import org.novize.api.dtos.timer.TimerDeltaDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Turns consecutive timer updates of a task into delta frames. Every {@code websocket.timer.keyframe-interval}
+ * frames, and after {@link #reset(String)}, a full keyframe is sent so that late subscribers catch up.
+ * <p>
+ * The state is per instance. Each keyframe chain starts at a random sequence number, so a delta encoded on
+ * another instance, or following a frame that never went out, does not continue the client's last sequence.
+ */
+@Component
+public class TimerDeltaEncoder {
+
+    private final int keyframeInterval;
+    // Task-ID -> zuletzt gesendeter Zustand
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    public TimerDeltaEncoder(@Value("${websocket.timer.keyframe-interval:10}") int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Encodes the update relative to the previous frame of the task. The state is dropped once the timer
+     * stops, the next start begins with a keyframe.
+     */
+    public TimerDeltaDto encode(String taskId, TimerUpdateDto update) {
+        TimerDeltaDto delta = new TimerDeltaDto();
+        states.compute(taskId, (id, previous) -> {
+            boolean keyframe = previous == null || previous.framesSinceKeyframe + 1 >= keyframeInterval;
+            // Neue Kette mit zufälligem Start, sonst fortlaufend (ein Überlauf zeigt höchstens eine Lücke zu viel an)
+            int sequence = previous == null
+                    ? ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)
+                    : previous.sequence + 1;
+            delta.setSequence(sequence);
+            if (keyframe) {
+                delta.setKeyframe(true);
+                delta.setRemainingTimeMillis(update.getRemainingTimeMillis());
+                delta.setTimerActive(update.getTimerActive());
+            } else {
+                if (!Objects.equals(previous.remainingTimeMillis, update.getRemainingTimeMillis())) {
+                    delta.setRemainingTimeMillis(update.getRemainingTimeMillis());
+                }
+                if (!Objects.equals(previous.timerActive, update.getTimerActive())) {
+                    delta.setTimerActive(update.getTimerActive());
+                }
+            }
+            if (!Boolean.TRUE.equals(update.getTimerActive())) {
+                return null;
+            }
+            return new State(update.getRemainingTimeMillis(), update.getTimerActive(),
+                    keyframe ? 0 : previous.framesSinceKeyframe + 1, sequence);
+        });
+        return delta;
+    }
+
+    /**
+     * Forgets the task's state, e.g. after frames were skipped because nobody was subscribed or a frame could
+     * not be sent.
+     */
+    public void reset(String taskId) {
+        states.remove(taskId);
+    }
+
+    private record State(Long remainingTimeMillis, Boolean timerActive, int framesSinceKeyframe, int sequence) {
+    }
+}
@@ -2,25 +2,193 @@ package org.novize.api.services;
 
 import org.novize.api.dtos.timer.TimerUpdateDto;
 import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.WireFormat;
 import org.novize.api.model.Task;
 import org.novize.api.model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class TimerNotificationService {
+    private static final Logger logger = LogManager.getLogger(TimerNotificationService.class);
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
     NotificationService notificationService;
 
+    @Autowired
+    private TimerSubscriptionRegistry timerSubscriptionRegistry;
+
+    @Autowired
+    private TimerDeltaEncoder timerDeltaEncoder;
+
+    @Value("${websocket.cbor.enabled:false}")
+    private boolean cborEnabled;
+
+    @Autowired
+    @Qualifier("realtimePublishExecutor")
+    private TaskExecutor publishExecutor;
+
+    @Autowired
+    private ActiveTimerCache activeTimerCache;
+
+    // Task-ID -> noch nicht veröffentlichtes Update, ein Eintrag solange ein Executor-Task die Queue abarbeitet
+    private final Map<String, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+
+    /**
+     * Publishes the timer state on the realtime publish executor, inside a transaction only after it committed.
+     * Timer updates are snapshots that the next tick replaces, so unlike notifications they skip the outbox.
+     */
     public void sendTimerUpdate(String taskId, TimerUpdateDto timerUpdate) {
-        messagingTemplate.convertAndSend(
-                "/topic/task/" + taskId + "/timer",
-                timerUpdate
-        );
+        afterCommit(() -> submit(taskId, timerUpdate));
+    }
+
+    /**
+     * Like {@link #sendTimerUpdate(String, TimerUpdateDto)}, and remembers the state in the {@link ActiveTimerCache}
+     * for the snapshot of the task's owner and the users it is shared with.
+     *
+     * @param task the task, its sharedWith collection is read
+     */
+    public void sendTimerUpdate(Task task, TimerUpdateDto timerUpdate) {
+        String taskId = task.getId();
+        List<String> viewers = viewers(task);
+        afterCommit(() -> {
+            activeTimerCache.update(taskId, viewers, timerUpdate);
+            submit(taskId, timerUpdate);
+        });
+    }
+
+    /**
+     * Publishes a scheduler tick. The viewers stored when the timer started are kept, the task's sharedWith
+     * collection is only loaded for a timer this instance does not know yet, e.g. after a restart.
+     */
+    public void sendTimerTick(Task task, TimerUpdateDto timerUpdate) {
+        String taskId = task.getId();
+        Collection<String> viewers = activeTimerCache.viewers(taskId);
+        Collection<String> viewersIfUnknown = viewers != null ? viewers : viewers(task);
+        afterCommit(() -> {
+            activeTimerCache.refresh(taskId, viewersIfUnknown, timerUpdate);
+            submit(taskId, timerUpdate);
+        });
+    }
+
+    /**
+     * Updates the viewers of a running timer after the task was shared or unshared.
+     */
+    public void updateTimerViewers(Task task) {
+        if (!Boolean.TRUE.equals(task.getTimerActive())) {
+            return;
+        }
+        String taskId = task.getId();
+        List<String> viewers = viewers(task);
+        afterCommit(() -> activeTimerCache.updateViewers(taskId, viewers));
+    }
+
+    private static List<String> viewers(Task task) {
+        List<String> viewers = new ArrayList<>(task.getSharedWith().size() + 1);
+        viewers.add(task.getUser().getEmail());
+        task.getSharedWith().forEach(user -> viewers.add(user.getEmail()));
+        return viewers;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Queues the update behind the task's earlier ones. At most one executor task drains a task's queue, so a
+     * tick can never overtake the pause or stop committed after it. Only the latest pending update is kept:
+     * each one is a full snapshot that supersedes the previous.
+     */
+    private void submit(String taskId, TimerUpdateDto timerUpdate) {
+        boolean[] schedule = new boolean[1];
+        pendingUpdates.compute(taskId, (id, pending) -> {
+            if (pending == null) {
+                schedule[0] = true;
+                pending = new PendingUpdate();
+            }
+            pending.update = timerUpdate;
+            return pending;
+        });
+        if (!schedule[0]) {
+            return;
+        }
+        try {
+            publishExecutor.execute(() -> drain(taskId));
+        } catch (TaskRejectedException e) {
+            // Der nächste Tick ersetzt das verworfene Update
+            pendingUpdates.remove(taskId);
+            logger.warn("Dropping timer update for task {}, publish executor is saturated", taskId);
+        }
+    }
+
+    private void drain(String taskId) {
+        while (true) {
+            TimerUpdateDto[] next = new TimerUpdateDto[1];
+            // Leere Queue wird unter derselben Sperre entfernt, das nächste submit() startet neu
+            pendingUpdates.computeIfPresent(taskId, (id, pending) -> {
+                next[0] = pending.update;
+                pending.update = null;
+                return next[0] != null ? pending : null;
+            });
+            if (next[0] == null) {
+                return;
+            }
+            try {
+                publishTimerUpdate(taskId, next[0]);
+            } catch (RuntimeException e) {
+                logger.warn("Publishing timer update for task {} failed: {}", taskId, e.getMessage());
+            }
+        }
+    }
+
+    private void publishTimerUpdate(String taskId, TimerUpdateDto timerUpdate) {
+        String destination = "/topic/task/" + taskId + "/timer";
+        // Ohne Zuschauer weder serialisieren noch an den Broker geben
+        if (timerSubscriptionRegistry.shouldPublish(taskId)) {
+            messagingTemplate.convertAndSend(destination, timerUpdate);
+        }
+        if (cborEnabled) {
+            if (timerSubscriptionRegistry.shouldPublish(taskId, WireFormat.CBOR)) {
+                try {
+                    messagingTemplate.convertAndSend(WireFormat.CBOR.destination(destination),
+                            timerDeltaEncoder.encode(taskId, timerUpdate), WireFormat.CBOR.messageHeaders());
+                } catch (RuntimeException e) {
+                    // Der Frame ist nicht raus, der nächste muss ein Keyframe sein
+                    timerDeltaEncoder.reset(taskId);
+                    throw e;
+                }
+            } else {
+                // Ausgelassene Frames: der nächste Zuschauer braucht einen Keyframe
+                timerDeltaEncoder.reset(taskId);
+            }
+        }
     }
 
     // Neue Methode zum Senden einer Timer-Abschluss-Benachrichtigung
@@ -45,4 +213,8 @@ public class TimerNotificationService {
             }
         }
     }
+
+    private static class PendingUpdate {
+        private TimerUpdateDto update;
+    }
 }
@@ -1,21 +1,24 @@
 package org.novize.api.services;
 
+import jakarta.annotation.PostConstruct;
 import org.novize.api.dtos.timer.TimerUpdateDto;
 import org.novize.api.model.Task;
 import org.novize.api.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
 @Service
-@EnableScheduling
 public class TimerSchedulerService {
 
     private static final Logger logger = Logger.getLogger(TimerSchedulerService.class.getName());
@@ -27,39 +30,73 @@ public class TimerSchedulerService {
     @Autowired
     private TimerNotificationService timerNotificationService;
 
+    // Mindestabstand zwischen zwei Updates desselben Timers über alle Instanzen hinweg
+    @Value("${timer.scheduler.min-interval:900ms}")
+    private Duration minInterval;
 
 
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
      * Aktualisiert alle aktiven Timer in regelmäßigen Abständen (1 Sekunde)
      * und sendet die aktualisierten Werte an die Clients über WebSocket.
+     * Laufen mehrere Instanzen, beansprucht jede nur fällige und nicht gesperrte Tasks (SKIP LOCKED),
+     * damit jedes Update genau einmal gesendet wird.
+     * Die Zeilensperren halten nur für Beanspruchen und Speichern, gesendet wird nach dem Commit. Die
+     * Benachrichtigungen abgelaufener Timer folgen danach in je einer eigenen Transaktion.
      */
     @Scheduled(fixedRate = 1000)
-    @Transactional
     public void updateActiveTimers() {
         logger.info("Timer scheduler running at " + LocalDateTime.now());
 
+        List<String> completedTaskIds;
         try {
-
-            List<Task> activeTasks = taskRepository.findByTimerActiveTrue();
-            if (!activeTasks.isEmpty()) {
-                logger.info("Updating " + activeTasks.size() + " active timers");
-            }
-
             LocalDateTime now = LocalDateTime.now();
+            completedTaskIds = transactionTemplate.execute(status -> {
+                List<Task> activeTasks = taskRepository.claimDueTimers(now.minus(minInterval));
+                if (!activeTasks.isEmpty()) {
+                    logger.info("Updating " + activeTasks.size() + " active timers");
+                }
 
-            for (Task task : activeTasks) {
-                updateTaskTimer(task, now);
-            }
-
+                List<String> completed = new ArrayList<>();
+                for (Task task : activeTasks) {
+                    if (updateTaskTimer(task, now)) {
+                        completed.add(task.getId());
+                    }
+                }
+                return completed;
+            });
         } catch (Exception e) {
             logger.severe("Fehler bei der Timer-Aktualisierung: " + e.getMessage());
+            return;
+        }
+
+        for (String taskId : completedTaskIds) {
+            try {
+                // Benachrichtigung an Eigentümer und geteilte Benutzer senden
+                transactionTemplate.executeWithoutResult(status -> taskRepository.findById(taskId)
+                        .ifPresent(timerNotificationService::sendTimerCompletedNotification));
+            } catch (Exception e) {
+                logger.severe("Fehler beim Benachrichtigen über den abgelaufenen Timer " + taskId + ": " + e.getMessage());
+            }
         }
     }
 
     /**
-     * Aktualisiert den Timer eines einzelnen Tasks und sendet das Update an die Clients.
+     * Aktualisiert den Timer eines einzelnen Tasks und sendet das Update nach dem Commit an die Clients.
+     *
+     * @return {@code true}, wenn der Timer mit diesem Tick abgelaufen ist
      */
-    private void updateTaskTimer(Task task, LocalDateTime now) {
+    private boolean updateTaskTimer(Task task, LocalDateTime now) {
         // Logging für Debugging
         logger.info("Aktualisiere Timer für Task: " + task.getId() + " - " + task.getName() +
                 " - verbleibende Zeit: " + task.getRemainingTimeMillis() + " ms");
@@ -93,12 +130,8 @@ public class TimerSchedulerService {
                             ", justCompleted=" + justCompleted);
 
 
-                    // Wenn der Timer gerade jetzt abgelaufen ist, Benachrichtigungen senden
                     if (justCompleted) {
                         logger.info("Timer abgelaufen für Task: " + task.getId() + " - " + task.getName());
-
-                        // Benachrichtigung an Eigentümer und geteilte Benutzer senden
-                        timerNotificationService.sendTimerCompletedNotification(task);
                     }
                 }
 
@@ -112,12 +145,14 @@ public class TimerSchedulerService {
                 // Zusätzliches Logging
                 logger.info("Timer aktualisiert: " + task.getId() + " - verbleibende Zeit jetzt: " +
                         task.getRemainingTimeMillis() + " ms, aktiv: " + task.getTimerActive());
+                return justCompleted;
             }
         } else if (task.getLastTimerUpdateTimestamp() == null) {
             // Falls der Zeitstempel null ist, setzen wir ihn auf jetzt
             task.setLastTimerUpdateTimestamp(now);
             taskRepository.save(task);
         }
+        return false;
     }
 
     /**
@@ -127,6 +162,6 @@ public class TimerSchedulerService {
         TimerUpdateDto updateDto = new TimerUpdateDto();
         updateDto.setRemainingTimeMillis(task.getRemainingTimeMillis());
         updateDto.setTimerActive(task.getTimerActive());
-        timerNotificationService.sendTimerUpdate(task.getId(), updateDto);
+        timerNotificationService.sendTimerTick(task, updateDto);
     }
 }
\ No newline at end of file
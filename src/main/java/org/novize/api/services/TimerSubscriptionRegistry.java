@@ -0,0 +1,148 @@
+package org.novize.api.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.enums.WireFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the live subscribers of every {@code /topic/task/{id}/timer} topic and its {@link WireFormat} variants,
+ * so that timer ticks for tasks nobody is watching are neither serialized nor handed to the broker.
+ * <p>
+ * Only this instance's sessions are visible here. With a broker relay, viewers may be connected to another
+ * instance, so updates are then always published.
+ */
+@Component
+public class TimerSubscriptionRegistry {
+    static final String TOPIC_PREFIX = "/topic/task/";
+    static final String TOPIC_SUFFIX = "/timer";
+
+    private final boolean skipUnsubscribed;
+    // Session-ID -> (Subscription-ID -> Topic-Schlüssel), UNSUBSCRIBE enthält keine Destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // Topic-Schlüssel (Task-ID + Format-Suffix) -> Anzahl Subscriptions, Einträge mit 0 werden entfernt
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter skipped;
+
+    public TimerSubscriptionRegistry(@Value("${websocket.broker.mode:simple}") BrokerMode brokerMode,
+                                     @Value("${websocket.timer.skip-unsubscribed:true}") boolean skipUnsubscribed,
+                                     MeterRegistry meterRegistry) {
+        this.skipUnsubscribed = skipUnsubscribed && brokerMode == BrokerMode.SIMPLE;
+        this.published = Counter.builder("websocket.timer.updates")
+                .description("Timer updates by whether anyone was subscribed")
+                .tag("outcome", "published")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("websocket.timer.updates")
+                .description("Timer updates by whether anyone was subscribed")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+        Gauge.builder("websocket.timer.watched-tasks", subscribers, Map::size)
+                .description("Tasks whose timer topic has at least one subscriber")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        String taskId = taskIdOf(destination);
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        if (taskId == null || sessionId == null || subscriptionId == null) {
+            return;
+        }
+        String key = key(taskId, WireFormat.ofDestination(destination));
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, key);
+        if (previous != null) {
+            release(previous);
+        }
+        subscribers.merge(key, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String key = subscriptions.remove(accessor.getSubscriptionId());
+        if (key != null) {
+            release(key);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Decides whether a JSON timer update for the task is worth sending and records the outcome.
+     *
+     * @return {@code false} if nobody on this instance is subscribed to the task's timer topic
+     */
+    public boolean shouldPublish(String taskId) {
+        return shouldPublish(taskId, WireFormat.JSON);
+    }
+
+    /**
+     * Like {@link #shouldPublish(String)} for the topic variant of the given format.
+     */
+    public boolean shouldPublish(String taskId, WireFormat format) {
+        if (!skipUnsubscribed || subscribers.containsKey(key(taskId, format))) {
+            published.increment();
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * @return the number of live subscriptions to the task's JSON timer topic on this instance
+     */
+    public int getSubscriberCount(String taskId) {
+        return getSubscriberCount(taskId, WireFormat.JSON);
+    }
+
+    public int getSubscriberCount(String taskId, WireFormat format) {
+        return subscribers.getOrDefault(key(taskId, format), 0);
+    }
+
+    private void release(String key) {
+        subscribers.computeIfPresent(key, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String key(String taskId, WireFormat format) {
+        return taskId + format.getDestinationSuffix();
+    }
+
+    static String taskIdOf(String destination) {
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return null;
+        }
+        String topic = destination.substring(0, destination.length()
+                - WireFormat.ofDestination(destination).getDestinationSuffix().length());
+        if (!topic.endsWith(TOPIC_SUFFIX)) {
+            return null;
+        }
+        String taskId = topic.substring(TOPIC_PREFIX.length(), topic.length() - TOPIC_SUFFIX.length());
+        return taskId.isEmpty() || taskId.contains("/") ? null : taskId;
+    }
+}
@@ -1,14 +1,17 @@
 package org.novize.api.services;
 
+import org.hibernate.Hibernate;
 import org.novize.api.dtos.auth.RegisterUserDto;
 import org.novize.api.dtos.user.UserDto;
 import org.novize.api.enums.RoleEnum;
+import org.novize.api.exceptions.UserNotFoundException;
 import org.novize.api.model.Role;
 import org.novize.api.model.User;
 import org.novize.api.model.UserAchievement;
 import org.novize.api.repository.RoleRepository;
 import org.novize.api.repository.UserRepository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,6 +48,17 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Loads the next chunk of all users ordered by id.
+     *
+     * @param after the last user of the previous chunk, {@code null} for the first chunk
+     * @param chunk the maximum number of users to load
+     * @return the users following {@code after}
+     */
+    public List<User> findUserChunk(User after, Pageable chunk) {
+        return userRepository.findAllAfter(after == null ? "" : after.getId(), chunk);
+    }
+
     /**
      * Saves the provided user entity into the repository and constructs a UserDto object
      * from the newly created user data.
@@ -72,7 +86,7 @@ public class UserService {
      */
     @Transactional
     public List<UserAchievement> getUserAchievements(User user) {
-        return user.getUserAchievements();
+        return withAchievements(user).getUserAchievements();
     }
 
     /**
@@ -84,6 +98,7 @@ public class UserService {
      */
     @Transactional
     public List<UserAchievement> addUserAchievement(User user, UserAchievement newAchievement) {
+        user = withAchievements(user);
         user.getUserAchievements().add(newAchievement);
         newAchievement.setUser(user); // Setze die Beziehung
         user = userRepository.save(user); // Speichere den Benutzer, um die Änderung zu persistieren
@@ -102,6 +117,7 @@ public class UserService {
      */
     @Transactional
     public List<UserAchievement> updateUserAchievements(User user, UserAchievement updatedAchievements) {
+        user = withAchievements(user);
         // Erstelle eine neue veränderbare Liste mit dem aktualisierten Achievement
         List<UserAchievement> newAchievements = new ArrayList<>();
         newAchievements.add(updatedAchievements);
@@ -138,6 +154,17 @@ public class UserService {
         return userRepository.findByEmail(email).orElse(null);
     }
 
+    /**
+     * Returns a reference to a user without loading it, for queries and associations that only need the id.
+     * Reading any other property of the reference outside a transaction fails.
+     *
+     * @param id the id of the user
+     * @return the uninitialized user reference
+     */
+    public User getReference(String id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Creates an administrator user by building a User object from the provided input
      * and assigns the administrator role if available in the repository.
@@ -164,6 +191,18 @@ public class UserService {
         return userRepository.save(user);
     }
 
-
-
+    /**
+     * Achievements are loaded lazily. Users coming from the security context or another session are detached,
+     * so their achievements are fetched explicitly in a single query.
+     *
+     * @param user the user whose achievements are needed
+     * @return the user with initialized achievements
+     */
+    private User withAchievements(User user) {
+        if (Hibernate.isInitialized(user.getUserAchievements())) {
+            return user;
+        }
+        return userRepository.findWithAchievementsById(user.getId())
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
 }
@@ -0,0 +1,119 @@
+package org.novize.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import org.novize.api.auth.JwtPrincipal;
+import org.novize.api.model.User;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Authenticates WebSocket clients for the handshake and the STOMP CONNECT frame.
+ * <p>
+ * Both steps present the same token within milliseconds, during a reconnect storm thousands of clients do so
+ * at once. The resulting authentication is therefore cached by token hash: the first check verifies the
+ * token and loads the user, the second one and every reconnect with the same token reuse it. Concurrent
+ * checks of the same token share a single load. Entries live until the token expires, at most
+ * {@code websocket.auth-cache.expire-after-write}; revocations via the security stamp apply immediately.
+ */
+@Service
+public class WebSocketAuthenticationService {
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final SecurityStampService securityStampService;
+    private final boolean stateless;
+    private final Cache<String, AuthenticatedSession> sessions;
+
+    public WebSocketAuthenticationService(JwtService jwtService,
+                                          UserRepository userRepository,
+                                          SecurityStampService securityStampService,
+                                          @Value("${security.jwt.stateless:false}") boolean stateless,
+                                          @Value("${websocket.auth-cache.maximum-size:20000}") long maximumSize,
+                                          @Value("${websocket.auth-cache.expire-after-write:5m}") Duration maxTtl) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.securityStampService = securityStampService;
+        this.stateless = stateless;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, AuthenticatedSession>() {
+                    @Override
+                    public long expireAfterCreate(String hash, AuthenticatedSession session, long currentTime) {
+                        long untilExpiry = Duration.between(Instant.now(), session.expiresAt()).toNanos();
+                        return Math.max(0L, Math.min(untilExpiry, maxTtl.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, AuthenticatedSession session, long currentTime, long currentDuration) {
+                        return expireAfterCreate(hash, session, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, AuthenticatedSession session, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @param token the raw access token
+     * @return the authentication with the username as principal, empty if the user does not exist
+     * @throws JwtException if the token is invalid, expired or revoked
+     */
+    public Optional<Authentication> authenticate(String token) {
+        AuthenticatedSession session = sessions.get(JwtService.hash(token), hash -> load(token));
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (!session.expiresAt().isAfter(Instant.now())) {
+            throw new JwtException("Token expired");
+        }
+        if (session.stamp() != null && !securityStampService.isCurrent(session.userId(), session.stamp())) {
+            throw new JwtException("Token has been revoked");
+        }
+        return Optional.of(session.authentication());
+    }
+
+    private AuthenticatedSession load(String token) {
+        JwtPrincipal principal = jwtService.validate(token);
+
+        if (stateless && principal.isStateless()) {
+            return new AuthenticatedSession(
+                    authentication(principal.username(), List.of(new SimpleGrantedAuthority("ROLE_" + principal.role()))),
+                    principal.userId(), principal.stamp(), principal.expiresAt());
+        }
+
+        Optional<User> user = userRepository.findByEmail(principal.username());
+        if (user.isEmpty()) {
+            return null;
+        }
+        if (principal.stamp() != null && !principal.stamp().equals(user.get().getSecurityStamp())) {
+            throw new JwtException("Token has been revoked");
+        }
+        return new AuthenticatedSession(
+                authentication(principal.username(), user.get().getAuthorities()),
+                user.get().getId(), principal.stamp(), principal.expiresAt());
+    }
+
+    // WICHTIG: Nur den Benutzernamen als Principal verwenden, convertAndSendToUser adressiert darüber
+    private static Authentication authentication(String username, Collection<? extends GrantedAuthority> authorities) {
+        return new UsernamePasswordAuthenticationToken(username, null, authorities);
+    }
+
+    private record AuthenticatedSession(Authentication authentication, String userId, Long stamp, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package org.novize.api;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.auth.JwtAuthenticationFilter;
+import org.novize.api.model.Achievement;
+import org.novize.api.model.User;
+import org.novize.api.model.UserAchievement;
+import org.novize.api.repository.AchievementRepository;
+import org.novize.api.repository.UserRepository;
+import org.novize.api.services.JwtService;
+import org.novize.api.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Users are loaded without their achievements on the authentication path; achievements are fetched explicitly.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class LazyUserAchievementsTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private AchievementRepository achievementRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String email;
+    private String userId;
+
+    @BeforeEach
+    public void setup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = testUsers.builder("Lazy").userAchievements(new ArrayList<>()).build();
+            email = user.getUsername();
+            Achievement achievement = achievementRepository.findAll().iterator().next();
+            user.getUserAchievements().add(UserAchievement.builder().user(user).achievement(achievement).build());
+            userId = userRepository.save(user).getId();
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void findByEmail_shouldNotLoadAchievements() {
+        User user = userRepository.findByEmail(email).orElseThrow();
+
+        assertFalse(Hibernate.isInitialized(user.getUserAchievements()));
+    }
+
+    @Test
+    public void getUserAchievements_forDetachedUser_shouldFetchExplicitly() {
+        User detached = userRepository.findByEmail(email).orElseThrow();
+
+        List<UserAchievement> achievements = userService.getUserAchievements(detached);
+
+        assertEquals(1, achievements.size());
+        assertNotNull(achievements.getFirst().getAchievement().getName());
+    }
+
+    @Test
+    public void filter_shouldInstallSlimPrincipal() throws Exception {
+        String token = jwtService.generateToken(userRepository.findById(userId).orElseThrow());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(userId, principal.id());
+        assertEquals(email, principal.username());
+    }
+}
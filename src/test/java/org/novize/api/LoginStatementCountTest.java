@@ -0,0 +1,98 @@
+package org.novize.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.model.User;
+import org.novize.api.repository.RefreshTokenRepository;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements of {@code POST /api/auth/login}: the first login seeds the default tasks,
+ * every later login only rotates the refresh token.
+ */
+// Timer-Scheduler, Outbox-Polling und Presence-Heartbeat würden eigene Statements beisteuern
+@SpringBootTest(properties = "scheduling.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class LoginStatementCountTest {
+    private static final Logger logger = LogManager.getLogger(LoginStatementCountTest.class);
+    private static final String PASSWORD = "Secret-password1";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = testUsers.create("Login", PASSWORD);
+    }
+
+    @Test
+    public void repeatedLogin_shouldSeedOnceAndOnlyRotateTheRefreshToken() throws Exception {
+        login();
+        assertTrue(userRepository.findById(user.getId()).orElseThrow().isTasksSeeded());
+        assertEquals(3, taskRepository.findByUserId(user.getId(), Sort.unsorted()).size());
+
+        statistics.clear();
+        login();
+        long statements = statistics.getPrepareStatementCount();
+        logger.info("Statements per repeated login: {}", statements);
+
+        assertTrue(statements <= 2, "Repeated login issued " + statements + " statements");
+        assertEquals(3, taskRepository.findByUserId(user.getId(), Sort.unsorted()).size());
+        assertTrue(refreshTokenRepository.findByUserId(user.getId()).isPresent());
+    }
+
+    @Test
+    public void login_withExistingTasks_shouldNotSeedAgain() throws Exception {
+        login();
+        // Ältere Konten ohne Flag: Tasks vorhanden, Flag zurückgesetzt
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        stored.setTasksSeeded(false);
+        userRepository.save(stored);
+
+        login();
+
+        assertEquals(3, taskRepository.findByUserId(user.getId(), Sort.unsorted()).size());
+        assertTrue(userRepository.findById(user.getId()).orElseThrow().isTasksSeeded());
+    }
+
+    private void login() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + user.getUsername() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+}
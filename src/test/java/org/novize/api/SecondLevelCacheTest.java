@@ -0,0 +1,153 @@
+package org.novize.api;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the Hibernate second-level cache and compares the number of SQL statements of a typical
+ * authenticated task-list request with the cache bypassed and with a warm cache.
+ */
+// Ohne geplante Jobs, sie würden eigene Statements in die Statistik zählen
+@SpringBootTest(properties = "scheduling.enabled=false")
+@ActiveProfiles("test")
+public class SecondLevelCacheTest {
+    private static final Logger logger = LogManager.getLogger(SecondLevelCacheTest.class);
+    private static final int TASK_COUNT = 5;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private String ownerEmail;
+    private String friendEmail;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = testUsers.create("Owner");
+            User friend = testUsers.create("Friend");
+            ownerEmail = owner.getUsername();
+            friendEmail = friend.getUsername();
+
+            for (int i = 0; i < TASK_COUNT; i++) {
+                Task task = Task.builder()
+                        .name("Task " + i)
+                        .description("Description " + i)
+                        .urgency(Urgency.MEDIUM)
+                        .dueDate(LocalDateTime.now().plusDays(i))
+                        .user(owner)
+                        .build();
+                task.getSharedWith().add(friend);
+                taskRepository.save(task);
+            }
+        });
+    }
+
+    @Test
+    public void taskListRequest_withWarmCache_shouldIssueFewerStatements() {
+        long withoutCache = simulateTaskListRequest(CacheMode.IGNORE);
+
+        simulateTaskListRequest(CacheMode.NORMAL); // warm up
+        long hitsBefore = statistics.getSecondLevelCacheHitCount();
+        long withCache = simulateTaskListRequest(CacheMode.NORMAL);
+
+        logger.info("Statements per task-list request: without L2 cache={}, with L2 cache={}", withoutCache, withCache);
+
+        assertTrue(withCache < withoutCache, "Warm cache should save statements");
+        assertTrue(statistics.getSecondLevelCacheHitCount() > hitsBefore, "Request should be served from the cache");
+    }
+
+    @Test
+    public void findByEmail_withWarmCache_shouldNotHitDatabase() {
+        transactionTemplate.executeWithoutResult(status -> userRepository.findByEmail(ownerEmail).orElseThrow());
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> userRepository.findByEmail(ownerEmail).orElseThrow());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void updates_shouldEvictStaleEntries() {
+        // User-, Task- und Collection-Regionen vorwärmen
+        simulateTaskListRequest(CacheMode.NORMAL);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = userRepository.findByEmail(ownerEmail).orElseThrow();
+            owner.setXp(42L);
+            userRepository.save(owner);
+
+            User friend = userRepository.findByEmail(friendEmail).orElseThrow();
+            Task task = taskRepository.findTasksForUser(owner).get(0);
+            task.getSharedWith().remove(friend);
+            taskRepository.save(task);
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = userRepository.findByEmail(ownerEmail).orElseThrow();
+            assertEquals(42L, owner.getXp());
+
+            List<Task> tasks = taskRepository.findTasksForUser(owner);
+            long unshared = tasks.stream().filter(task -> task.getSharedWith().isEmpty()).count();
+            assertEquals(1, unshared);
+        });
+    }
+
+    /**
+     * Mimics an authenticated {@code GET /api/tasks}: the filter loads the user by email and the mapper walks
+     * every task's {@code sharedWith} collection.
+     *
+     * @return the number of JDBC statements prepared for the request
+     */
+    private long simulateTaskListRequest(CacheMode cacheMode) {
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(cacheMode);
+
+            User user = userRepository.findByEmail(ownerEmail).orElseThrow();
+            List<Task> tasks = taskRepository.findTasksForUser(user);
+            assertEquals(TASK_COUNT, tasks.size());
+            tasks.forEach(task -> task.getSharedWith().forEach(User::getUsername));
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
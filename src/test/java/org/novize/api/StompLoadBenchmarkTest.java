@@ -0,0 +1,281 @@
+package org.novize.api;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.RoleRepository;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.repository.UserRepository;
+import org.novize.api.services.JwtService;
+import org.novize.api.services.TimerSchedulerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Load harness: N STOMP clients, half over SockJS ({@code /ws}) and half over native WebSocket ({@code /ws/native}),
+ * each subscribed to several task timers and its notification queue.
+ * Latency is measured from the start of a {@link TimerSchedulerService} tick to the client receiving the
+ * update; p50/p99/p999 and the delivered frames per second are logged per transport and client count.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=StompLoadBenchmarkTest}. Client counts are set via
+ * {@code -Dbenchmark.clients=1000,5000,10000}; the client side needs a raised open file limit for 10k clients.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "websocket.security.same-origin-disabled=true",
+        "server.tomcat.max-connections=25000",
+        "server.tomcat.accept-count=2000"
+})
+public class StompLoadBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(StompLoadBenchmarkTest.class);
+    private static final int[] CLIENTS = Arrays.stream(System.getProperty("benchmark.clients", "1000,5000,10000").split(","))
+            .mapToInt(count -> Integer.parseInt(count.trim()))
+            .toArray();
+    private static final int TASKS = Integer.getInteger("benchmark.tasks", 200);
+    private static final int USERS = Integer.getInteger("benchmark.users", 100);
+    private static final int TIMERS_PER_CLIENT = Integer.getInteger("benchmark.timers-per-client", 3);
+    private static final int CONNECT_CONCURRENCY = Integer.getInteger("benchmark.connect-concurrency", 200);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 3));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.duration-seconds", 10));
+
+    // Beginn des laufenden Scheduler-Ticks, Referenz für die Latenz
+    private static final AtomicLong tickStartNanos = new AtomicLong();
+
+    @MockitoSpyBean
+    private TimerSchedulerService timerSchedulerService;
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private List<String> tokens;
+    private List<String> taskIds;
+
+    @BeforeEach
+    public void setup() {
+        doAnswer(invocation -> {
+            tickStartNanos.set(System.nanoTime());
+            return invocation.callRealMethod();
+        }).when(timerSchedulerService).updateActiveTimers();
+
+        var role = roleRepository.findByName(RoleEnum.USER).orElseThrow();
+        String run = UUID.randomUUID().toString().substring(0, 6);
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .firstname("Load").lastname("Client")
+                    .username("load-" + run + "-" + i + "@example.com")
+                    .password("secret").role(role).build());
+        }
+        List<User> saved = new ArrayList<>(USERS);
+        userRepository.saveAll(users).forEach(saved::add);
+        tokens = saved.stream().map(jwtService::generateToken).toList();
+
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            Task task = Task.builder().name("Load " + i).description("Timer").urgency(Urgency.LOW)
+                    .dueDate(LocalDateTime.now().plusDays(1)).user(saved.get(i % USERS)).build();
+            // Läuft länger als jeder Benchmark
+            task.setRemainingTimeMillis(Duration.ofHours(10).toMillis());
+            task.setTimerActive(true);
+            task.setLastTimerUpdateTimestamp(LocalDateTime.now());
+            tasks.add(task);
+        }
+        taskIds = taskRepository.saveAll(tasks).stream().map(Task::getId).toList();
+    }
+
+    @Test
+    public void timerFanOut() throws Exception {
+        for (int clients : CLIENTS) {
+            int sockJsClients = clients / 2;
+            Transport sockJs = new Transport("SockJS", sockJsStompClient(), "http://localhost:" + port + "/ws");
+            Transport raw = new Transport("WebSocket", rawStompClient(), "ws://localhost:" + port + "/ws/native");
+            try {
+                connect(sockJs, sockJsClients);
+                connect(raw, clients - sockJsClients);
+
+                Thread.sleep(WARMUP.toMillis());
+                sockJs.reset();
+                raw.reset();
+                Thread.sleep(DURATION.toMillis());
+
+                sockJs.report(clients);
+                raw.report(clients);
+                assertTrue(sockJs.frames.sum() > 0 && raw.frames.sum() > 0, "Clients should receive timer updates");
+            } finally {
+                sockJs.close();
+                raw.close();
+            }
+        }
+    }
+
+    private void connect(Transport transport, int clients) throws Exception {
+        Semaphore inFlight = new Semaphore(CONNECT_CONCURRENCY);
+        List<CompletableFuture<StompSession>> connects = new ArrayList<>(clients);
+        long begin = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            String token = tokens.get(i % tokens.size());
+            WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+            handshakeHeaders.add("Authorization", "Bearer " + token);
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.add("Authorization", "Bearer " + token);
+
+            inFlight.acquire();
+            CompletableFuture<StompSession> connect = transport.client.connectAsync(transport.url, handshakeHeaders,
+                    connectHeaders, new StompSessionHandlerAdapter() {
+                    });
+            connects.add(connect.whenComplete((session, error) -> {
+                inFlight.release();
+                if (session != null) {
+                    subscribe(transport, session);
+                }
+            }));
+        }
+        for (CompletableFuture<StompSession> connect : connects) {
+            transport.sessions.add(connect.get(2, TimeUnit.MINUTES));
+        }
+        logger.info("{}: connected {} clients in {} ms", transport.name, clients,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    private void subscribe(Transport transport, StompSession session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < TIMERS_PER_CLIENT; i++) {
+            String taskId = taskIds.get(random.nextInt(taskIds.size()));
+            session.subscribe("/topic/task/" + taskId + "/timer", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return TimerUpdateDto.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    transport.record(System.nanoTime());
+                }
+            });
+        }
+        session.subscribe("/user/queue/notifications", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+            }
+        });
+    }
+
+    private static WebSocketStompClient sockJsStompClient() {
+        return stompClient(new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())))));
+    }
+
+    private static WebSocketStompClient rawStompClient() {
+        return stompClient(new WebSocketStompClient(new StandardWebSocketClient()));
+    }
+
+    private static WebSocketStompClient stompClient(WebSocketStompClient client) {
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        // Keine Heartbeats, gemessen wird nur der Timer-Verkehr
+        client.setDefaultHeartbeat(new long[]{0, 0});
+        return client;
+    }
+
+    private static final class Transport {
+        private final String name;
+        private final WebSocketStompClient client;
+        private final String url;
+        private final List<StompSession> sessions = new ArrayList<>();
+        // Latenz in Mikrosekunden
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder frames = new LongAdder();
+        private volatile long measureStartNanos = System.nanoTime();
+
+        Transport(String name, WebSocketStompClient client, String url) {
+            this.name = name;
+            this.client = client;
+            this.url = url;
+        }
+
+        void record(long receivedNanos) {
+            long tickStart = tickStartNanos.get();
+            if (tickStart > 0) {
+                latency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(receivedNanos - tickStart)));
+            }
+            frames.increment();
+        }
+
+        void reset() {
+            latency.reset();
+            frames.reset();
+            measureStartNanos = System.nanoTime();
+        }
+
+        void report(int totalClients) {
+            Histogram histogram = latency.getIntervalHistogram();
+            double seconds = (System.nanoTime() - measureStartNanos) / 1e9;
+            logger.info("{} clients, {} ({} sessions): p50 {} us, p99 {} us, p999 {} us, max {} us, {} frames/s",
+                    totalClients, name, sessions.size(),
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                    histogram.getValueAtPercentile(99.9), histogram.getMaxValue(),
+                    Math.round(frames.sum() / seconds));
+        }
+
+        void close() {
+            sessions.forEach(session -> {
+                if (session.isConnected()) {
+                    session.disconnect();
+                }
+            });
+            sessions.clear();
+            client.stop();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.novize.api;
+
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.novize.api.repository.RoleRepository;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Creates users for integration tests. All test contexts share one database, so every user gets a unique
+ * e-mail address made of the lower-cased first name and a random suffix.
+ */
+@Component
+public class TestUsers {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /**
+     * Saves a user with the role USER and a password that cannot be used to log in.
+     */
+    public User create(String firstname) {
+        return userRepository.save(builder(firstname).build());
+    }
+
+    /**
+     * Like {@link #create(String)}, the user can log in with the given password.
+     */
+    public User create(String firstname, String rawPassword) {
+        return userRepository.save(builder(firstname).password(passwordEncoder.encode(rawPassword)).build());
+    }
+
+    /**
+     * An unsaved user, for tests that need to set further fields before saving.
+     */
+    public User.UserBuilder builder(String firstname) {
+        return User.builder()
+                .firstname(firstname)
+                .lastname("Test")
+                .username(firstname.toLowerCase() + "-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .password("secret")
+                .role(roleRepository.findByName(RoleEnum.USER).orElseThrow());
+    }
+}
@@ -2,6 +2,7 @@ package org.novize.api;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.TaskDto;
 import org.novize.api.dtos.timer.TimerUpdateDto;
 import org.novize.api.enums.Urgency;
@@ -133,7 +134,7 @@ public class WebSocketTimerTests {
         // 3. Separate Tests für Service und WebSocket
 
         // 3.1 Test des Service-Aufrufs
-        TaskDto resultTaskDto = taskService.startTimer(taskId, testUser);
+        TaskDto resultTaskDto = taskService.startTimer(taskId, AuthenticatedUser.of(testUser));
 
         // Überprüfen des Service-Ergebnisses
         assertNotNull(resultTaskDto, "TaskDto sollte nicht null sein");
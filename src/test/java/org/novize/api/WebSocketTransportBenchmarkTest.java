@@ -0,0 +1,328 @@
+package org.novize.api;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.novize.api.config.NativeWebSocketHandshakeHandler;
+import org.novize.api.dtos.NotificationDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.novize.api.repository.RoleRepository;
+import org.novize.api.repository.UserRepository;
+import org.novize.api.services.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares SockJS ({@code /ws}), native WebSocket ({@code /ws/native}) and native WebSocket with permessage-deflate
+ * for the realtime traffic: every round each client gets one timer update and one notification.
+ * <p>
+ * The clients connect through a TCP proxy that counts the bytes sent to them, so the reported size per frame
+ * includes WebSocket, SockJS and compression overhead. Server CPU is the CPU time of all threads except the
+ * client and proxy threads while the rounds run. Run with {@code mvn test -Pbenchmark -Dtest=WebSocketTransportBenchmarkTest},
+ * sizes via {@code -Dbenchmark.clients} and {@code -Dbenchmark.rounds}.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "websocket.security.same-origin-disabled=true",
+        "websocket.native.permessage-deflate.enabled=true"
+})
+public class WebSocketTransportBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(WebSocketTransportBenchmarkTest.class);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 200);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 50);
+    private static final int WARMUP_ROUNDS = Integer.getInteger("benchmark.warmup-rounds", 5);
+    private static final int TASKS = 50;
+    // Threads, die nicht zum Server gehören: Tomcat-WebSocket-Client und Proxy
+    private static final List<String> CLIENT_THREAD_PREFIXES = List.of("WebSocketClient-", "proxy-");
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private List<User> users;
+    private List<String> tokens;
+    private List<String> taskIds;
+
+    @BeforeEach
+    public void setup() {
+        var role = roleRepository.findByName(RoleEnum.USER).orElseThrow();
+        String run = UUID.randomUUID().toString().substring(0, 6);
+        List<User> created = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            created.add(User.builder()
+                    .firstname("Transport").lastname("Client")
+                    .username("transport-" + run + "-" + i + "@example.com")
+                    .password("secret").role(role).build());
+        }
+        users = new ArrayList<>(CLIENTS);
+        userRepository.saveAll(created).forEach(users::add);
+        tokens = users.stream().map(jwtService::generateToken).toList();
+        taskIds = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            taskIds.add(UUID.randomUUID().toString());
+        }
+    }
+
+    @Test
+    public void compareTransports() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.add(run("SockJS", sockJsStompClient(), "http://localhost:%d/ws", false));
+        results.add(run("WebSocket", nativeStompClient(), "ws://localhost:%d/ws/native", false));
+        results.add(run("WebSocket+deflate", nativeStompClient(), "ws://localhost:%d/ws/native", true));
+
+        for (Result result : results) {
+            logger.info("{}: {} clients, {} frames, {} bytes/frame on the wire, {} us server CPU/frame, {} frames/s",
+                    result.name(), CLIENTS, result.frames(), String.format("%.1f", result.bytesPerFrame()),
+                    String.format("%.2f", result.cpuMicrosPerFrame()), Math.round(result.framesPerSecond()));
+        }
+        assertTrue(results.get(2).bytesPerFrame() < results.get(1).bytesPerFrame(), "Deflate should shrink frames");
+    }
+
+    private Result run(String name, WebSocketStompClient stompClient, String urlTemplate, boolean deflate) throws Exception {
+        Semaphore received = new Semaphore(0);
+        List<StompSession> sessions = new ArrayList<>(CLIENTS);
+        ByteCountingProxy proxy = new ByteCountingProxy(port);
+        try {
+            String url = String.format(urlTemplate, proxy.getPort());
+            for (int i = 0; i < CLIENTS; i++) {
+                WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+                handshakeHeaders.add("Authorization", "Bearer " + tokens.get(i));
+                if (deflate) {
+                    handshakeHeaders.setSecWebSocketExtensions(
+                            List.of(new WebSocketExtension(NativeWebSocketHandshakeHandler.PERMESSAGE_DEFLATE)));
+                }
+                StompSession session = stompClient.connectAsync(url, handshakeHeaders, new StompHeaders(),
+                        new StompSessionHandlerAdapter() {
+                        }).get(30, TimeUnit.SECONDS);
+                session.subscribe("/topic/task/" + taskIds.get(i % TASKS) + "/timer", counting(received));
+                session.subscribe("/user/queue/notifications", counting(received));
+                sessions.add(session);
+            }
+            // SUBSCRIBE wird asynchron verarbeitet
+            Thread.sleep(500);
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                sendRound(round, received);
+            }
+            proxy.reset();
+            Map<Long, Long> cpuBefore = serverThreadCpu();
+            long begin = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                sendRound(round, received);
+            }
+            long elapsedNanos = System.nanoTime() - begin;
+            long cpuNanos = cpuSince(cpuBefore);
+
+            long frames = 2L * CLIENTS * ROUNDS;
+            return new Result(name, frames, (double) proxy.downstreamBytes() / frames,
+                    cpuNanos / 1000.0 / frames, frames / (elapsedNanos / 1e9));
+        } finally {
+            // Vor dem Proxy schließen, sonst sind die Verbindungen schon weg
+            sessions.forEach(session -> {
+                if (session.isConnected()) {
+                    session.disconnect();
+                }
+            });
+            stompClient.stop();
+            proxy.close();
+        }
+    }
+
+    private void sendRound(int round, Semaphore received) throws InterruptedException {
+        long remaining = 25 * 60 * 1000L - round * 1000L;
+        for (String taskId : taskIds) {
+            messagingTemplate.convertAndSend("/topic/task/" + taskId + "/timer", new TimerUpdateDto(remaining, true));
+        }
+        for (User user : users) {
+            messagingTemplate.convertAndSendToUser(user.getEmail(), "/queue/notifications", NotificationDto.builder()
+                    .id(UUID.randomUUID().toString())
+                    .type(NotificationType.TASK_COMPLETED)
+                    .message("Der Pomodoro-Timer für die Aufgabe \"Benchmark\" ist abgelaufen!")
+                    .payload("{\"taskId\": \"" + taskIds.get(round % TASKS) + "\"}")
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        // Jeder Client bekommt ein Timer-Update und eine Benachrichtigung
+        assertTrue(received.tryAcquire(2 * CLIENTS, 30, TimeUnit.SECONDS), "Round " + round + " was not delivered");
+    }
+
+    private static StompFrameHandler counting(Semaphore received) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.release();
+            }
+        };
+    }
+
+    private static Map<Long, Long> serverThreadCpu() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> cpu = new ConcurrentHashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (CLIENT_THREAD_PREFIXES.stream().noneMatch(thread.getName()::startsWith)) {
+                long nanos = threads.getThreadCpuTime(thread.threadId());
+                if (nanos >= 0) {
+                    cpu.put(thread.threadId(), nanos);
+                }
+            }
+        }
+        return cpu;
+    }
+
+    private static long cpuSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> thread : serverThreadCpu().entrySet()) {
+            total += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static WebSocketStompClient sockJsStompClient() {
+        return stompClient(new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())))));
+    }
+
+    private static WebSocketStompClient nativeStompClient() {
+        return stompClient(new WebSocketStompClient(new StandardWebSocketClient()));
+    }
+
+    private static WebSocketStompClient stompClient(WebSocketStompClient client) {
+        client.setDefaultHeartbeat(new long[]{0, 0});
+        return client;
+    }
+
+    private record Result(String name, long frames, double bytesPerFrame, double cpuMicrosPerFrame,
+                          double framesPerSecond) {
+    }
+
+    /**
+     * Forwards TCP connections to the server and counts the bytes sent back to the clients.
+     */
+    private static final class ByteCountingProxy implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new ArrayList<>();
+        private final LongAdder downstream = new LongAdder();
+
+        ByteCountingProxy(int targetPort) throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket client = serverSocket.accept();
+                        Socket server = new Socket("localhost", targetPort);
+                        client.setTcpNoDelay(true);
+                        server.setTcpNoDelay(true);
+                        synchronized (sockets) {
+                            sockets.add(client);
+                            sockets.add(server);
+                        }
+                        pipe(client.getInputStream(), server.getOutputStream(), null);
+                        pipe(server.getInputStream(), client.getOutputStream(), downstream);
+                    } catch (IOException e) {
+                        // Proxy geschlossen
+                    }
+                }
+            }, "proxy-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        long downstreamBytes() {
+            return downstream.sum();
+        }
+
+        void reset() {
+            downstream.reset();
+        }
+
+        private static void pipe(InputStream in, OutputStream out, LongAdder counter) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[16 * 1024];
+                try {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        out.flush();
+                        if (counter != null) {
+                            counter.add(read);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Verbindung geschlossen
+                } finally {
+                    try {
+                        out.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }, "proxy-pipe");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.novize.api.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthenticatedUserArgumentResolverTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private AuthenticatedUserArgumentResolver resolver;
+    private MockHttpServletRequest request;
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        resolver = new AuthenticatedUserArgumentResolver(userDetailsService);
+        request = new MockHttpServletRequest();
+        user = User.builder().username("user@example.com").build();
+        user.setId("user-id");
+
+        AuthenticatedUser principal = new AuthenticatedUser("user-id", "user@example.com", RoleEnum.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void resolveArgument_WhenFilterLoadedTheUser_ShouldReuseIt() {
+        request.setAttribute(JwtAuthenticationFilter.LOADED_USER_ATTRIBUTE, user);
+
+        assertSame(user, resolver.resolveArgument(null, null, new ServletWebRequest(request), null));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    public void resolveArgument_WithoutLoadedUser_ShouldLoadIt() {
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+
+        assertSame(user, resolver.resolveArgument(null, null, new ServletWebRequest(request), null));
+        verify(userDetailsService).loadUserByUsername("user@example.com");
+    }
+}
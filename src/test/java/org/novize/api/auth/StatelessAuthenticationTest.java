@@ -0,0 +1,104 @@
+package org.novize.api.auth;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.novize.api.repository.UserRepository;
+import org.novize.api.services.JwtService;
+import org.novize.api.services.SecurityStampService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Ohne geplante Jobs, sie würden eigene Statements in die Statistik zählen
+@SpringBootTest(properties = {"security.jwt.stateless=true", "scheduling.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class StatelessAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private SecurityStampService securityStampService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private String token;
+
+    @BeforeEach
+    public void setup() {
+        user = testUsers.create("Stateless");
+        token = jwtService.generateToken(user);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void filter_WithWarmStampCache_ShouldNotQueryDatabase() throws Exception {
+        securityStampService.currentStamp(user.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(user.getId(), principal.id());
+        assertEquals(RoleEnum.USER, principal.role());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void me_ShouldLoadFullUserForEndpointsThatNeedIt() throws Exception {
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(user.getId())))
+                .andExpect(jsonPath("$.firstname", is("Stateless")));
+    }
+
+    @Test
+    public void revoke_ShouldRejectPreviouslyIssuedTokens() throws Exception {
+        securityStampService.revoke(user.getId());
+
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+        String newToken = jwtService.generateToken(userRepository.findById(user.getId()).orElseThrow());
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + newToken))
+                .andExpect(status().isOk());
+    }
+}
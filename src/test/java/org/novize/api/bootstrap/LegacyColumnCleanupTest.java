@@ -0,0 +1,48 @@
+package org.novize.api.bootstrap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegacyColumnCleanupTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LegacyColumnCleanup cleanup;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(
+                "jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";MODE=MySQL", "sa", "", true));
+        cleanup = new LegacyColumnCleanup(jdbcTemplate);
+    }
+
+    @Test
+    public void legacyPlaintextTokenColumn_shouldBeDropped() {
+        jdbcTemplate.execute("CREATE TABLE \"refresh_token\" (\"id\" INT PRIMARY KEY, \"token\" VARCHAR(255), \"token_hash\" VARCHAR(64))");
+        jdbcTemplate.update("INSERT INTO \"refresh_token\" VALUES (1, 'plaintext', 'hash')");
+
+        cleanup.onApplicationEvent(null);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT * FROM \"refresh_token\"");
+        assertEquals(1, rows.size());
+        assertFalse(rows.getFirst().containsKey("token"));
+        assertEquals("hash", rows.getFirst().get("token_hash"));
+    }
+
+    @Test
+    public void currentSchema_shouldStayUntouched() {
+        jdbcTemplate.execute("CREATE TABLE \"refresh_token\" (\"id\" INT PRIMARY KEY, \"token_hash\" VARCHAR(64))");
+
+        cleanup.onApplicationEvent(null);
+        cleanup.onApplicationEvent(null);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM \"refresh_token\"", Integer.class));
+    }
+}
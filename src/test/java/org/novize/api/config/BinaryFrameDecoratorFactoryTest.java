@@ -0,0 +1,32 @@
+package org.novize.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFrameDecoratorFactoryTest {
+
+    @Test
+    public void hasCborContentType_shouldOnlyMatchTheHeaderBlock() {
+        assertTrue(BinaryFrameDecoratorFactory.hasCborContentType(frame("application/cbor", "x")));
+        assertFalse(BinaryFrameDecoratorFactory.hasCborContentType(frame("application/json", "{}")));
+        // Gleicher Text im Body zählt nicht
+        assertFalse(BinaryFrameDecoratorFactory.hasCborContentType(
+                frame("text/plain", "\ncontent-type:application/cbor")));
+    }
+
+    private static byte[] frame(String contentType, String body) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination("/topic/task/t1/timer.cbor");
+        accessor.setContentType(MimeType.valueOf(contentType));
+        accessor.setSubscriptionId("sub-0");
+        accessor.setMessageId("1");
+        return new StompEncoder().encode(accessor.getMessageHeaders(), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
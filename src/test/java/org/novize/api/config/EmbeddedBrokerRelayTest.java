@@ -0,0 +1,180 @@
+package org.novize.api.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.services.TimerNotificationService;
+import org.novize.api.services.TimerSchedulerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the broker relay against the embedded Artemis broker. A plain STOMP client connected to the broker
+ * stands in for a second instance: it must see every message sent by this instance exactly once.
+ */
+@SpringBootTest(properties = "websocket.broker.mode=embedded")
+@ActiveProfiles("test")
+public class EmbeddedBrokerRelayTest {
+
+    @DynamicPropertySource
+    static void brokerProperties(DynamicPropertyRegistry registry) throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            int port = socket.getLocalPort();
+            registry.add("websocket.broker.relay.port", () -> port);
+        }
+    }
+
+    @Autowired
+    @Qualifier("stompBrokerRelayMessageHandler")
+    private AbstractBrokerMessageHandler brokerRelay;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private TimerNotificationService timerNotificationService;
+    @Autowired
+    private TimerSchedulerService timerSchedulerService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private Environment environment;
+
+    private ReactorNettyTcpStompClient stompClient;
+    private ThreadPoolTaskScheduler receiptScheduler;
+    private StompSession session;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!brokerRelay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(brokerRelay.isBrokerAvailable(), "Relay should be connected to the embedded broker");
+
+        stompClient = new ReactorNettyTcpStompClient(EmbeddedBrokerConfiguration.HOST,
+                environment.getRequiredProperty("websocket.broker.relay.port", Integer.class));
+        receiptScheduler = new ThreadPoolTaskScheduler();
+        receiptScheduler.initialize();
+        stompClient.setTaskScheduler(receiptScheduler);
+        session = stompClient.connectAsync(new StompSessionHandlerAdapter() {
+        }).get(5, TimeUnit.SECONDS);
+        session.setAutoReceipt(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (session != null) {
+            session.disconnect();
+        }
+        stompClient.shutdown();
+        receiptScheduler.shutdown();
+    }
+
+    @Test
+    public void timerUpdate_shouldReachOtherInstanceExactlyOnce() throws Exception {
+        AtomicInteger received = subscribe("/topic/task/relay-test/timer");
+
+        TimerUpdateDto update = new TimerUpdateDto();
+        update.setRemainingTimeMillis(1000L);
+        update.setTimerActive(true);
+        timerNotificationService.sendTimerUpdate("relay-test", update);
+
+        awaitCount(received, 1);
+        Thread.sleep(300);
+        assertEquals(1, received.get());
+    }
+
+    @Test
+    public void userDestination_withoutLocalSession_shouldBeBroadcastToOtherInstances() throws Exception {
+        AtomicInteger received = subscribe("/topic/unresolved-user-destination");
+
+        messagingTemplate.convertAndSendToUser("someone-on-another-node@example.com", "/queue/notifications", "hello");
+
+        awaitCount(received, 1);
+        Thread.sleep(300);
+        assertEquals(1, received.get());
+    }
+
+    @Test
+    public void concurrentSchedulerRuns_shouldSendEachTimerUpdateOnce() throws Exception {
+        User user = testUsers.create("Relay");
+        Task task = Task.builder().name("Timer").description("Relay").urgency(Urgency.LOW)
+                .dueDate(LocalDateTime.now().plusDays(1)).user(user).build();
+        task.setTimerActive(true);
+        task.setRemainingTimeMillis(60_000L);
+        task.setLastTimerUpdateTimestamp(LocalDateTime.now().minusSeconds(2));
+        task = taskRepository.save(task);
+        AtomicInteger received = subscribe("/topic/task/" + task.getId() + "/timer");
+
+        // Mehrere "Instanzen" ticken gleichzeitig
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(timerSchedulerService::updateActiveTimers);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        awaitCount(received, 1);
+        Thread.sleep(300);
+        assertEquals(1, received.get());
+    }
+
+    private AtomicInteger subscribe(String destination) throws InterruptedException {
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        StompSession.Subscription subscription = session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.incrementAndGet();
+            }
+        });
+        subscription.addReceiptTask(subscribed::countDown);
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS), "Broker should confirm the subscription");
+        return received;
+    }
+
+    private static void awaitCount(AtomicInteger counter, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (counter.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, counter.get());
+    }
+}
@@ -0,0 +1,73 @@
+package org.novize.api.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requests from the test client arrive from 127.0.0.1, an internal proxy for Tomcat's RemoteIpValve, so the
+ * client address is taken from X-Forwarded-For like behind the reverse proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.login-throttle.max-failures-per-ip=2",
+        "security.login-throttle.max-failures-per-user=100",
+        "rate-limit.auth.capacity=3",
+        "rate-limit.auth.refill-per-second=0.01"
+})
+@ActiveProfiles("test")
+public class ForwardedClientAddressTest {
+    private static final String PASSWORD = "Secret-password1";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private TestUsers testUsers;
+
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        user = testUsers.create("Forwarded", PASSWORD);
+    }
+
+    @Test
+    public void loginThrottle_shouldBlockOnlyTheForwardedClient() {
+        String attacker = "203.0.113.10";
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login(attacker, "unknown-1@example.com", "wrong").getStatusCode());
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login(attacker, "unknown-2@example.com", "wrong").getStatusCode());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login(attacker, user.getUsername(), PASSWORD).getStatusCode());
+        // Gleicher Proxy, anderer Client
+        assertEquals(HttpStatus.OK, login("198.51.100.7", user.getUsername(), PASSWORD).getStatusCode());
+    }
+
+    @Test
+    public void rateLimit_shouldCountRequestsPerForwardedClient() {
+        String client = "203.0.113.20";
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.OK, login(client, user.getUsername(), PASSWORD).getStatusCode());
+        }
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login(client, user.getUsername(), PASSWORD).getStatusCode());
+        assertEquals(HttpStatus.OK, login("198.51.100.20", user.getUsername(), PASSWORD).getStatusCode());
+    }
+
+    private ResponseEntity<String> login(String forwardedFor, String email, String password) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", forwardedFor);
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        return restTemplate.postForEntity("/api/auth/login", new HttpEntity<>(body, headers), String.class);
+    }
+}
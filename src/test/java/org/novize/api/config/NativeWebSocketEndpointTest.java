@@ -0,0 +1,137 @@
+package org.novize.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.dtos.RealtimeSnapshotDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.services.JwtService;
+import org.novize.api.services.NotificationService;
+import org.novize.api.services.TimerNotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "websocket.security.same-origin-disabled=true",
+        "websocket.native.permessage-deflate.server-context-takeover=false",
+        // Eigene Datenbank, der laufende Timer soll nicht von den Schedulern anderer Test-Kontexte getickt werden
+        "spring.datasource.url=jdbc:h2:mem:native-ws-test;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+public class NativeWebSocketEndpointTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private TimerNotificationService timerNotificationService;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        user = testUsers.create("Native");
+    }
+
+    @Test
+    public void handshake_shouldNegotiateDeflateWithoutServerContextTakeover() throws Exception {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketExtensions(List.of(new WebSocketExtension(NativeWebSocketHandshakeHandler.PERMESSAGE_DEFLATE)));
+
+        WebSocketSession session = new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler(), headers, URI.create("ws://localhost:" + port + "/ws/native"))
+                .get(10, TimeUnit.SECONDS);
+        try {
+            assertEquals(1, session.getExtensions().size());
+            WebSocketExtension deflate = session.getExtensions().getFirst();
+            assertEquals(NativeWebSocketHandshakeHandler.PERMESSAGE_DEFLATE, deflate.getName());
+            assertTrue(deflate.getParameters().containsKey(NativeWebSocketHandshakeHandler.SERVER_NO_CONTEXT_TAKEOVER));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void snapshot_shouldContainRunningTimerAndUnreadNotification() throws Exception {
+        Task task = Task.builder().name("Native").description("Timer").urgency(Urgency.LOW)
+                .dueDate(LocalDateTime.now().plusDays(1)).user(user).build();
+        task.setRemainingTimeMillis(Duration.ofMinutes(25).toMillis());
+        task.setTimerActive(true);
+        task.setLastTimerUpdateTimestamp(LocalDateTime.now());
+        task = taskRepository.save(task);
+        timerNotificationService.sendTimerUpdate(task, new TimerUpdateDto(task.getRemainingTimeMillis(), true));
+        notificationService.sendNotification(user, NotificationType.TASK_COMPLETED, "Fertig", null);
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        stompClient.setMessageConverter(converter);
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.add("Authorization", "Bearer " + jwtService.generateToken(user));
+
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + "/ws/native", handshakeHeaders,
+                new StompHeaders(), new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        try {
+            CompletableFuture<RealtimeSnapshotDto> snapshot = new CompletableFuture<>();
+            session.subscribe("/app/snapshot", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return RealtimeSnapshotDto.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    snapshot.complete((RealtimeSnapshotDto) payload);
+                }
+            });
+
+            RealtimeSnapshotDto result = snapshot.get(10, TimeUnit.SECONDS);
+            String taskId = task.getId();
+            assertTrue(result.getTimers().stream().anyMatch(timer -> timer.getTaskId().equals(taskId)));
+            assertEquals(1, result.getUnreadCount());
+            assertEquals("Fertig", result.getNotifications().getFirst().getMessage());
+        } finally {
+            session.disconnect();
+            stompClient.stop();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.novize.api.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.services.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"rate-limit.search.capacity=2", "rate-limit.search.refill-per-second=0.01"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private TestUsers testUsers;
+
+    private String token;
+
+    @BeforeEach
+    public void setup() {
+        token = createToken();
+    }
+
+    @Test
+    public void search_overLimit_shouldReturn429WithRetryAfter() throws Exception {
+        search(token).andExpect(status().isOk());
+        search(token).andExpect(status().isOk());
+
+        search(token)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+                .andExpect(jsonPath("$.statusCode").value(429));
+    }
+
+    @Test
+    public void limits_shouldBeCountedPerUserAndRouteGroup() throws Exception {
+        search(token).andExpect(status().isOk());
+        search(token).andExpect(status().isOk());
+        search(token).andExpect(status().isTooManyRequests());
+
+        // Andere Routengruppe desselben Benutzers
+        mockMvc.perform(get("/api/tasks").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // Anderer Benutzer
+        search(createToken()).andExpect(status().isOk());
+    }
+
+    private ResultActions search(String jwt) throws Exception {
+        return mockMvc.perform(get("/api/tasks/search").param("query", "x").param("page", "1").param("size", "10")
+                .header("Authorization", "Bearer " + jwt));
+    }
+
+    private String createToken() {
+        return jwtService.generateToken(testUsers.create("Limit"));
+    }
+}
@@ -0,0 +1,140 @@
+package org.novize.api.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.User;
+import org.novize.api.repository.RoleRepository;
+import org.novize.api.repository.UserRepository;
+import org.novize.api.services.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reconnect storm: every client performs the HTTP handshake and the STOMP CONNECT at the same time.
+ * Compares the former path (JWT check and user lookup in both steps) with the shared authentication cache,
+ * for the first connect and for a reconnect with the same tokens.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, the number of clients is set via {@code -Dbenchmark.clients}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class ReconnectStormBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(ReconnectStormBenchmarkTest.class);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 5000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 200);
+
+    @Autowired
+    private JwtWebSocketHandshakeHandler handshakeHandler;
+    @Autowired
+    private WebSocketChannelInterceptor channelInterceptor;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    public void reconnectStorm() throws Exception {
+        List<String> tokens = createClients();
+
+        double baseline = storm("uncached (validate + findByEmail twice)", tokens, token -> {
+            for (int step = 0; step < 2; step++) {
+                String username = jwtService.validate(token).username();
+                userRepository.findByEmail(username).orElseThrow();
+            }
+            return true;
+        });
+        double cold = storm("shared cache, first connect", tokens, this::handshakeAndConnect);
+        double warm = storm("shared cache, reconnect", tokens, this::handshakeAndConnect);
+
+        logger.info("Reconnect storm with {} clients: baseline {} /s, cold {} /s, warm {} /s",
+                CLIENTS, Math.round(baseline), Math.round(cold), Math.round(warm));
+        assertTrue(warm > baseline, "Reconnects should be served from the cache");
+    }
+
+    private boolean handshakeAndConnect(String token) {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws");
+        servletRequest.setParameter("token", token);
+        Principal principal = handshakeHandler.determineUser(
+                new ServletServerHttpRequest(servletRequest), null, new HashMap<>());
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setNativeHeader("Authorization", "Bearer " + token);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> connect = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        channelInterceptor.preSend(connect, null);
+
+        return principal != null && principal.getName().equals(accessor.getUser().getName());
+    }
+
+    private double storm(String name, List<String> tokens, ClientAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger authenticated = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (action.run(token)) {
+                    authenticated.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+
+        assertEquals(tokens.size(), authenticated.get());
+        double throughput = tokens.size() / seconds;
+        logger.info("{}: {} clients in {} ms ({} /s)", name, tokens.size(), Math.round(seconds * 1000), Math.round(throughput));
+        return throughput;
+    }
+
+    private List<String> createClients() {
+        var role = roleRepository.findByName(RoleEnum.USER).orElseThrow();
+        String run = UUID.randomUUID().toString().substring(0, 6);
+        List<User> users = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            users.add(User.builder()
+                    .firstname("Storm").lastname("Client")
+                    .username("storm-" + run + "-" + i + "@example.com")
+                    .password("secret").role(role).build());
+        }
+        List<String> tokens = new ArrayList<>(CLIENTS);
+        userRepository.saveAll(users).forEach(user -> tokens.add(jwtService.generateToken(user)));
+        return tokens;
+    }
+
+    @FunctionalInterface
+    private interface ClientAction {
+        boolean run(String token) throws Exception;
+    }
+}
@@ -0,0 +1,66 @@
+package org.novize.api.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryConsume_shouldAllowBurstThenRejectWithWaitTime() {
+        TokenBucket bucket = new TokenBucket(3, 1);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, bucket.tryConsume(now));
+        assertEquals(0, bucket.tryConsume(now));
+        assertEquals(0, bucket.tryConsume(now));
+
+        assertEquals(SECOND, bucket.tryConsume(now));
+    }
+
+    @Test
+    public void tryConsume_shouldRefillAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, bucket.tryConsume(now));
+        assertTrue(bucket.tryConsume(now + SECOND / 4) > 0);
+        assertEquals(0, bucket.tryConsume(now + SECOND / 2));
+    }
+
+    @Test
+    public void tryConsume_shouldNotExceedCapacityAfterIdling() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        long later = 1_000_000 * SECOND;
+
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(0, bucket.tryConsume(later));
+        assertTrue(bucket.tryConsume(later) > 0);
+    }
+
+    @Test
+    public void tryConsume_concurrently_shouldHandOutExactlyCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(50, 0.001);
+        long now = System.nanoTime();
+        AtomicInteger granted = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> {
+                if (bucket.tryConsume(now) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, granted.get());
+    }
+}
@@ -0,0 +1,114 @@
+package org.novize.api.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.services.WebSocketAuthenticationService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WebSocketChannelInterceptorTest {
+
+    private WebSocketAuthenticationService authenticationService;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketChannelInterceptor interceptor;
+
+    @BeforeEach
+    public void setup() {
+        authenticationService = mock(WebSocketAuthenticationService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new WebSocketChannelInterceptor(authenticationService, meterRegistry, true, 0, 100);
+    }
+
+    @Test
+    public void connect_shouldAuthenticateBearerToken() {
+        var authentication = new UsernamePasswordAuthenticationToken("user@example.com", null, List.of());
+        when(authenticationService.authenticate("abc")).thenReturn(Optional.of(authentication));
+        StompHeaderAccessor accessor = accessor(StompCommand.CONNECT);
+        accessor.setNativeHeader("Authorization", "Bearer abc");
+
+        interceptor.preSend(message(accessor), null);
+
+        assertSame(authentication, accessor.getUser());
+    }
+
+    @Test
+    public void connect_shouldSkipTokenIfHandshakeAuthenticated() {
+        StompHeaderAccessor accessor = accessor(StompCommand.CONNECT);
+        accessor.setUser(new UsernamePasswordAuthenticationToken("user@example.com", null, List.of()));
+        accessor.setNativeHeader("Authorization", "Bearer abc");
+
+        interceptor.preSend(message(accessor), null);
+
+        verifyNoInteractions(authenticationService);
+    }
+
+    @Test
+    public void subscribe_shouldRejectCborWithoutBinaryFrames() {
+        StompHeaderAccessor accessor = accessor(StompCommand.SUBSCRIBE);
+        accessor.setDestination("/topic/task/t1/timer.cbor");
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(message(accessor), null));
+
+        accessor.getSessionAttributes().put(BinaryFrameDecoratorFactory.BINARY_FRAMES_ATTRIBUTE, true);
+        assertNotNull(interceptor.preSend(message(accessor), null));
+    }
+
+    @Test
+    public void frames_shouldBeCountedAndTimedPerCommand() {
+        Message<byte[]> send = message(accessor(StompCommand.SEND));
+
+        interceptor.preSend(send, null);
+        interceptor.preSend(send, null);
+        interceptor.beforeHandle(send, null, null);
+        interceptor.afterMessageHandled(send, null, null, null);
+
+        assertEquals(2.0, meterRegistry.get("websocket.inbound.frames").tag("command", "SEND").counter().count());
+        assertEquals(1L, meterRegistry.get("websocket.inbound.handling").tag("command", "SEND").timer().count());
+        assertEquals(0.0, meterRegistry.get("websocket.inbound.frames").tag("command", "SUBSCRIBE").counter().count());
+    }
+
+    @Test
+    public void handling_shouldBeTimedOncePerFrameWithSeveralHandlers() {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        channel.addInterceptor(interceptor);
+        List<Message<?>> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            channel.subscribe(received::add);
+        }
+
+        channel.send(message(accessor(StompCommand.SEND)));
+        channel.send(message(accessor(StompCommand.SEND)));
+
+        assertEquals(6, received.size());
+        assertEquals(2.0, meterRegistry.get("websocket.inbound.frames").tag("command", "SEND").counter().count());
+        assertEquals(2L, meterRegistry.get("websocket.inbound.handling").tag("command", "SEND").timer().count());
+    }
+
+    private static StompHeaderAccessor accessor(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        accessor.setSessionAttributes(sessionAttributes);
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
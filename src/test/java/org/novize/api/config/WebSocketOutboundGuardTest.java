@@ -0,0 +1,80 @@
+package org.novize.api.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WebSocketOutboundGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketOutboundGuard guard;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new WebSocketOutboundGuard(2, meterRegistry);
+    }
+
+    @Test
+    public void preSend_overSessionLimit_shouldDropAndCount() {
+        assertNotNull(guard.preSend(message("s1", SimpMessageType.MESSAGE), null));
+        assertNotNull(guard.preSend(message("s1", SimpMessageType.MESSAGE), null));
+
+        assertNull(guard.preSend(message("s1", SimpMessageType.MESSAGE), null));
+        assertEquals(1, meterRegistry.counter("websocket.outbound.dropped").count());
+        assertEquals(2, guard.getQueued("s1"));
+        // Andere Sessions sind nicht betroffen
+        assertNotNull(guard.preSend(message("s2", SimpMessageType.MESSAGE), null));
+    }
+
+    @Test
+    public void afterMessageHandled_shouldFreeQueueSlot() {
+        Message<byte[]> message = message("s1", SimpMessageType.MESSAGE);
+        guard.preSend(message, null);
+        guard.preSend(message, null);
+
+        guard.afterMessageHandled(message, null, null, null);
+
+        assertEquals(1, guard.getQueued("s1"));
+        assertNotNull(guard.preSend(message, null));
+        assertEquals(2.0, meterRegistry.get("websocket.outbound.session.queue.max").gauge().value());
+    }
+
+    @Test
+    public void controlFrames_shouldNeverBeDropped() {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(guard.preSend(message("s1", SimpMessageType.CONNECT_ACK), null));
+        }
+        assertEquals(0, guard.getQueued("s1"));
+    }
+
+    @Test
+    public void slowConsumerClose_shouldBeCountedAndClearQueue() throws Exception {
+        guard.preSend(message("s1", SimpMessageType.MESSAGE), null);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        WebSocketHandler decorated = guard.decorate(mock(WebSocketHandler.class));
+
+        decorated.afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+        decorated.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertEquals(1, meterRegistry.counter("websocket.sessions.slow-consumer").count());
+        assertEquals(0, guard.getQueued("s1"));
+    }
+
+    private static Message<byte[]> message(String sessionId, SimpMessageType type) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
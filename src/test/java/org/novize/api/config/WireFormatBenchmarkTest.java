@@ -0,0 +1,101 @@
+package org.novize.api.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.NotificationDto;
+import org.novize.api.dtos.user.UserDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.WireFormat;
+import org.novize.api.services.TimerDeltaEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes per frame and serialization cost of the JSON path against CBOR, with delta-encoded timer frames.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, the number of frames is set via {@code -Dbenchmark.frames}.
+ */
+@Tag("benchmark")
+public class WireFormatBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(WireFormatBenchmarkTest.class);
+    private static final int FRAMES = Integer.getInteger("benchmark.frames", 200_000);
+
+    private final MessageConverter json = jsonConverter();
+    private final MessageConverter cbor = new CborMessageConverter();
+
+    @Test
+    public void timerFrames() {
+        // Ein laufender Timer: jede Sekunde ein Frame
+        Result jsonResult = measure("timer JSON", json, WireFormat.JSON,
+                i -> new TimerUpdateDto(3_600_000L - i * 1000L, true));
+        TimerDeltaEncoder encoder = new TimerDeltaEncoder(10);
+        Result cborResult = measure("timer CBOR delta", cbor, WireFormat.CBOR,
+                i -> encoder.encode("t1", new TimerUpdateDto(3_600_000L - i * 1000L, true)));
+
+        assertTrue(cborResult.bytesPerFrame() < jsonResult.bytesPerFrame() / 2,
+                "Delta-encoded CBOR frames should be less than half the JSON size");
+    }
+
+    @Test
+    public void notificationFrames() {
+        UserDto recipient = UserDto.builder().id("u-1").email("recipient@example.com")
+                .firstname("Max").lastname("Mustermann").xp(1200L).build();
+        Result jsonResult = measure("notification JSON", json, WireFormat.JSON, i -> notification(recipient, i));
+        Result cborResult = measure("notification CBOR", cbor, WireFormat.CBOR, i -> notification(recipient, i));
+
+        assertTrue(cborResult.bytesPerFrame() < jsonResult.bytesPerFrame());
+    }
+
+    // Wie der Standard-Converter des Message-Brokers
+    private static MessageConverter jsonConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+        return converter;
+    }
+
+    private Result measure(String name, MessageConverter converter, WireFormat format, IntFunction<Object> frames) {
+        long bytes = 0;
+        // Aufwärmen, dann messen
+        for (int i = 0; i < FRAMES / 10; i++) {
+            serialize(converter, format, frames.apply(i));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            bytes += serialize(converter, format, frames.apply(i)).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        Result result = new Result((double) bytes / FRAMES, (double) elapsed / FRAMES);
+        logger.info("{}: {} bytes/frame, {} ns/frame", name,
+                String.format("%.1f", result.bytesPerFrame()), Math.round(result.nanosPerFrame()));
+        return result;
+    }
+
+    private static byte[] serialize(MessageConverter converter, WireFormat format, Object payload) {
+        Message<?> message = converter.toMessage(payload, format.messageHeaders());
+        assertNotNull(message);
+        return (byte[]) message.getPayload();
+    }
+
+    private static NotificationDto notification(UserDto recipient, int i) {
+        NotificationDto notification = new NotificationDto();
+        notification.setId("n-" + i);
+        notification.setRecipient(recipient);
+        notification.setType(NotificationType.ACHIEVEMENT_UNLOCKED);
+        notification.setMessage("Achievement unlocked: Early Bird");
+        notification.setCreatedAt(LocalDateTime.now());
+        return notification;
+    }
+
+    private record Result(double bytesPerFrame, double nanosPerFrame) {
+    }
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.novize.api.dtos.task.TaskDto;
+import org.novize.api.dtos.task.TaskSummaryDto;
+import org.novize.api.enums.TaskField;
 import org.novize.api.enums.Urgency;
 import org.novize.api.exceptions.InvalidRequestException;
 import org.novize.api.exceptions.UserNotFoundException;
@@ -20,8 +22,16 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
 
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -111,4 +121,28 @@ public class TaskControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    public void getAllTasks_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+        TaskSummaryDto summary = new TaskSummaryDto("12345", "Sample Task", Urgency.HIGH, null, false);
+        summary.retain(EnumSet.of(TaskField.ID, TaskField.NAME));
+
+        Mockito.when(taskService.getTaskSummariesByUserAndRelation(any(), isNull(), eq(EnumSet.of(TaskField.ID, TaskField.NAME))))
+                .thenReturn(List.of(summary));
+
+        mockMvc.perform(get("/api/tasks").param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is("12345")))
+                .andExpect(jsonPath("$[0].name", is("Sample Task")))
+                .andExpect(jsonPath("$[0]", not(hasKey("urgency"))))
+                .andExpect(jsonPath("$[0]", not(hasKey("description"))));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    public void getAllTasks_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("fields", "id,password"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,88 @@
+package org.novize.api.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JsonArrayWriterTest {
+    private static final List<String> IDS = List.of("a", "b", "c", "d", "e");
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private JsonArrayWriter jsonArrayWriter;
+
+    @BeforeEach
+    public void setup() {
+        jsonArrayWriter = new JsonArrayWriter(new ObjectMapper(), transactionManager, 2);
+    }
+
+    @Test
+    public void write_ShouldLoadKeysetChunksAndWriteOneArray() throws IOException {
+        List<String> afterKeys = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jsonArrayWriter.<String>write((last, chunk) -> {
+            afterKeys.add(last);
+            return IDS.stream().filter(id -> last == null || id.compareTo(last) > 0).limit(chunk.getPageSize()).toList();
+        }, id -> Map.of("id", id), out);
+
+        assertEquals("[{\"id\":\"a\"},{\"id\":\"b\"},{\"id\":\"c\"},{\"id\":\"d\"},{\"id\":\"e\"}]",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(null, "b", "d"), afterKeys);
+        // Jeder Block in einer eigenen Transaktion
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    public void writeRaw_ShouldWriteChunkOnlyAfterItsTransactionEnded() throws IOException {
+        OutputStream out = mock(OutputStream.class);
+
+        jsonArrayWriter.<String>writeRaw((last, chunk) -> last == null ? List.of("a") : List.of(),
+                id -> ("\"" + id + "\"").getBytes(StandardCharsets.UTF_8), out);
+
+        InOrder inOrder = inOrder(transactionManager, out);
+        inOrder.verify(out).write(new byte[]{'['});
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(out).write("\"a\"".getBytes(StandardCharsets.UTF_8));
+        inOrder.verify(out).flush();
+    }
+
+    @Test
+    public void writeRaw_WhenLaterChunkFails_ShouldLeaveArrayOpen() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Function<String, byte[]> json = id -> ("\"" + id + "\"").getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> jsonArrayWriter.<String>writeRaw((last, chunk) -> {
+            if (last != null) {
+                throw new DataAccessResourceFailureException("connection lost");
+            }
+            return List.of("a", "b");
+        }, json, out));
+
+        // Kein schließendes ']', der Client erkennt die abgebrochene Antwort
+        assertEquals("[\"a\",\"b\"", out.toString(StandardCharsets.UTF_8));
+        verify(transactionManager).rollback(any());
+    }
+}
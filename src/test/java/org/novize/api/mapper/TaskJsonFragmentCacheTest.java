@@ -0,0 +1,164 @@
+package org.novize.api.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TaskJsonFragmentCacheTest {
+
+    @Autowired
+    private TaskJsonFragmentCache fragmentCache;
+    @Autowired
+    private TaskMapper taskMapper;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private String ownerEmail;
+    private String friendEmail;
+    private String taskId;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        taskId = transactionTemplate.execute(status -> {
+            User owner = testUsers.create("Owner");
+            User friend = testUsers.create("Friend");
+            ownerEmail = owner.getUsername();
+            friendEmail = friend.getUsername();
+
+            Task task = Task.builder()
+                    .name("Task")
+                    .description("Description")
+                    .urgency(Urgency.HIGH)
+                    .dueDate(LocalDateTime.now().plusDays(1))
+                    .user(owner)
+                    .build();
+            task.getSharedWith().add(friend);
+            return taskRepository.save(task).getId();
+        });
+    }
+
+    @Test
+    public void getFragment_ShouldMatchSerializedTaskDto() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = userRepository.findByEmail(ownerEmail).orElseThrow();
+            User friend = userRepository.findByEmail(friendEmail).orElseThrow();
+            Task task = taskRepository.findById(taskId).orElseThrow();
+
+            assertJsonEquals(taskMapper.toDto(task, AuthenticatedUser.of(owner)), fragmentCache.getFragment(task, AuthenticatedUser.of(owner)));
+            assertJsonEquals(taskMapper.toDto(task, AuthenticatedUser.of(friend)), fragmentCache.getFragment(task, AuthenticatedUser.of(friend)));
+        });
+    }
+
+    @Test
+    public void getFragment_WhenTaskUnchanged_ShouldReuseFragment() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = userRepository.findByEmail(ownerEmail).orElseThrow();
+            Task task = taskRepository.findById(taskId).orElseThrow();
+
+            assertSame(fragmentCache.getFragment(task, AuthenticatedUser.of(owner)), fragmentCache.getFragment(task, AuthenticatedUser.of(owner)));
+        });
+    }
+
+    @Test
+    public void getFragment_WhenTaskOrSharedUserChanged_ShouldReserialize() {
+        byte[] before = transactionTemplate.execute(status -> fragmentCache.getFragment(
+                taskRepository.findById(taskId).orElseThrow(), AuthenticatedUser.of(userRepository.findByEmail(ownerEmail).orElseThrow())));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Task task = taskRepository.findById(taskId).orElseThrow();
+            task.setName("Renamed");
+            taskRepository.save(task);
+        });
+
+        byte[] afterRename = transactionTemplate.execute(status -> fragmentCache.getFragment(
+                taskRepository.findById(taskId).orElseThrow(), AuthenticatedUser.of(userRepository.findByEmail(ownerEmail).orElseThrow())));
+        assertNotSame(before, afterRename);
+        assertTrue(new String(afterRename).contains("\"name\":\"Renamed\""));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User friend = userRepository.findByEmail(friendEmail).orElseThrow();
+            friend.setXp(99L);
+            userRepository.save(friend);
+        });
+
+        byte[] afterXp = transactionTemplate.execute(status -> fragmentCache.getFragment(
+                taskRepository.findById(taskId).orElseThrow(), AuthenticatedUser.of(userRepository.findByEmail(ownerEmail).orElseThrow())));
+        assertTrue(new String(afterXp).contains("\"xp\":99"));
+    }
+
+    @Test
+    public void getFragment_AfterEditRacingATimerTick_ShouldNotConflict() {
+        Task edited = transactionTemplate.execute(status -> taskRepository.findById(taskId).orElseThrow());
+
+        // Tick des Schedulers zwischen Laden und Speichern der Bearbeitung
+        transactionTemplate.executeWithoutResult(status -> {
+            Task task = taskRepository.findById(taskId).orElseThrow();
+            task.setRemainingTimeMillis(1_000L);
+            taskRepository.save(task);
+        });
+        edited.setName("Edited");
+        assertDoesNotThrow(() -> transactionTemplate.executeWithoutResult(status -> taskRepository.save(edited)));
+
+        byte[] fragment = transactionTemplate.execute(status -> fragmentCache.getFragment(
+                taskRepository.findById(taskId).orElseThrow(), AuthenticatedUser.of(userRepository.findByEmail(ownerEmail).orElseThrow())));
+        assertTrue(new String(fragment).contains("\"name\":\"Edited\""));
+    }
+
+    @Test
+    public void writeArray_ShouldWriteValidJsonArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = userRepository.findByEmail(ownerEmail).orElseThrow();
+            Task task = taskRepository.findById(taskId).orElseThrow();
+            try {
+                fragmentCache.writeArray(List.of(task, task), AuthenticatedUser.of(owner), out);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        JsonNode array = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, array.size());
+        assertEquals(taskId, array.get(1).get("id").asText());
+        assertTrue(array.get(0).get("owner").asBoolean());
+    }
+
+    private void assertJsonEquals(Object expected, byte[] actual) {
+        try {
+            assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(expected)), objectMapper.readTree(actual));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
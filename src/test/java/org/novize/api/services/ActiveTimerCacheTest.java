@@ -0,0 +1,95 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.timer.ActiveTimerDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.repository.TaskRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ActiveTimerCacheTest {
+
+    private TaskRepository taskRepository;
+    private ActiveTimerCache cache;
+
+    @BeforeEach
+    public void setup() {
+        taskRepository = mock(TaskRepository.class);
+        cache = new ActiveTimerCache(taskRepository, BrokerMode.SIMPLE, Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void activeTimers_shouldContainTimersOfOwnedAndSharedTasks() {
+        cache.update("t1", List.of("owner@example.com"), new TimerUpdateDto(60_000L, true));
+        cache.update("t2", List.of("friend@example.com", "owner@example.com"), new TimerUpdateDto(30_000L, true));
+
+        List<ActiveTimerDto> timers = cache.activeTimers("owner@example.com");
+
+        assertEquals(2, timers.size());
+        ActiveTimerDto shared = cache.activeTimers("friend@example.com").getFirst();
+        assertEquals("t2", shared.getTaskId());
+        assertTrue(shared.getRemainingTimeMillis() <= 30_000L && shared.getRemainingTimeMillis() > 29_000L);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    public void stoppedOrUnsharedTimer_shouldBeRemoved() {
+        cache.update("t1", List.of("owner@example.com", "friend@example.com"), new TimerUpdateDto(60_000L, true));
+
+        // Nicht mehr geteilt
+        cache.update("t1", List.of("owner@example.com"), new TimerUpdateDto(59_000L, true));
+        assertTrue(cache.activeTimers("friend@example.com").isEmpty());
+
+        // Pausiert
+        cache.update("t1", List.of("owner@example.com"), new TimerUpdateDto(59_000L, false));
+        assertTrue(cache.activeTimers("owner@example.com").isEmpty());
+    }
+
+    @Test
+    public void refresh_shouldKeepKnownViewersAndFollowSharingChanges() {
+        cache.update("t1", List.of("owner@example.com"), new TimerUpdateDto(60_000L, true));
+
+        // Ein Tick bringt keine Zuschauer mit, die bekannten bleiben
+        cache.refresh("t1", List.of(), new TimerUpdateDto(59_000L, true));
+        assertEquals(1, cache.activeTimers("owner@example.com").size());
+
+        cache.updateViewers("t1", List.of("owner@example.com", "friend@example.com"));
+        cache.refresh("t1", List.of(), new TimerUpdateDto(58_000L, true));
+        assertEquals("t1", cache.activeTimers("friend@example.com").getFirst().getTaskId());
+        assertEquals(List.of("friend@example.com", "owner@example.com"),
+                cache.viewers("t1").stream().sorted().toList());
+
+        // Unbekannter Timer, z.B. nach einem Neustart
+        cache.refresh("t2", List.of("other@example.com"), new TimerUpdateDto(10_000L, true));
+        assertEquals(1, cache.activeTimers("other@example.com").size());
+    }
+
+    @Test
+    public void staleTimer_shouldBeDropped() throws InterruptedException {
+        cache = new ActiveTimerCache(taskRepository, BrokerMode.SIMPLE, Duration.ofMillis(10));
+        cache.update("t1", List.of("owner@example.com"), new TimerUpdateDto(60_000L, true));
+
+        Thread.sleep(50);
+
+        assertTrue(cache.activeTimers("owner@example.com").isEmpty());
+    }
+
+    @Test
+    public void clusteredBroker_shouldReadRunningTimersFromDatabase() {
+        cache = new ActiveTimerCache(taskRepository, BrokerMode.RELAY, Duration.ofSeconds(5));
+        when(taskRepository.findActiveTimerRows("owner@example.com")).thenReturn(List.<Object[]>of(
+                new Object[]{"t1", 60_000L, LocalDateTime.now().minusSeconds(10)}));
+
+        List<ActiveTimerDto> timers = cache.activeTimers("owner@example.com");
+
+        assertEquals(1, timers.size());
+        assertTrue(timers.getFirst().getRemainingTimeMillis() <= 50_000L);
+    }
+}
@@ -148,6 +148,27 @@ public class AuthenticationServiceTest {
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
+    @Test
+    void testAuthenticate_WhenPrincipalIsUser_ShouldNotLoadUserAgain() {
+        // Arrange
+        LoginUserDto loginUserDto = LoginUserDto.builder()
+                .email("test@example.com")
+                .password("password123")
+                .build();
+        User principal = new User();
+        principal.setUsername("test@example.com");
+
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, java.util.List.of()));
+
+        // Act
+        User result = authenticationService.authenticate(loginUserDto);
+
+        // Assert
+        assertSame(principal, result);
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void testAuthenticate_WhenAuthenticationFails_ShouldThrowException() {
         // Arrange
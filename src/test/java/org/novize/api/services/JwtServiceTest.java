@@ -1,6 +1,10 @@
 package org.novize.api.services;
 
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.jupiter.api.Test;
+import org.novize.api.auth.JwtPrincipal;
 import org.novize.api.model.RefreshToken;
 import org.novize.api.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,10 +12,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.util.Date;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -45,4 +49,45 @@ public class JwtServiceTest {
         assertNotNull(tokens.get("accessToken"));
         assertEquals("mockRefreshToken", tokens.get("refreshToken"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validate_ValidToken_ReturnsCachedPrincipal() {
+        User user = new User();
+        user.setFirstname("John");
+        user.setLastname("Doe");
+        user.setUsername("john.doe@example.com");
+
+        String token = jwtService.generateToken(user);
+
+        JwtPrincipal principal = jwtService.validate(token);
+
+        assertEquals("john.doe@example.com", principal.username());
+        assertTrue(principal.expiresAt().isAfter(principal.issuedAt()));
+        // Zweiter Aufruf wird aus dem Cache beantwortet
+        assertSame(principal, jwtService.validate(token));
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void validate_TamperedToken_ThrowsJwtException() {
+        User user = new User();
+        user.setUsername("john.doe@example.com");
+        String token = jwtService.generateToken(user);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.validate(tampered));
+    }
+
+    @Test
+    void validate_ExpiredToken_ThrowsJwtException() {
+        String token = Jwts.builder()
+                .setSubject("john.doe@example.com")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 7200000))
+                .setExpiration(new Date(System.currentTimeMillis() - 3600000))
+                .signWith(jwtService.getSignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtService.validate(token));
+    }
+}
@@ -0,0 +1,152 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.auth.LoginAttemptDto;
+import org.novize.api.exceptions.TooManyRequestsException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginAttemptServiceTest {
+    private static final String USER = "jane@example.com";
+    private static final String IP = "10.0.0.1";
+
+    private MutableClock clock;
+    private LoginAttemptService loginAttemptService;
+
+    @BeforeEach
+    public void setup() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        loginAttemptService = new LoginAttemptService(clock, Duration.ofMinutes(15), 3, 10,
+                Duration.ofSeconds(30), Duration.ofMinutes(10), 1000);
+    }
+
+    @Test
+    public void checkAllowed_afterTooManyFailures_shouldRejectWithRetryAfter() {
+        fail(3);
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> loginAttemptService.checkAllowed(USER, "10.0.0.2"));
+        assertEquals(30, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    public void checkAllowed_belowLimit_shouldAllow() {
+        fail(2);
+
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(USER, IP));
+    }
+
+    @Test
+    public void checkAllowed_shouldMatchUsernameCaseInsensitively() {
+        fail(3);
+
+        assertThrows(TooManyRequestsException.class,
+                () -> loginAttemptService.checkAllowed("Jane@Example.com", "10.0.0.2"));
+    }
+
+    @Test
+    public void checkAllowed_afterBlockExpired_shouldAllow() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(31));
+
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(USER, IP));
+    }
+
+    @Test
+    public void repeatedViolations_shouldDoubleBlockDuration() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(31));
+        fail(1);
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> loginAttemptService.checkAllowed(USER, IP));
+        assertEquals(60, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    public void ipLimit_shouldBlockAcrossUsernames() {
+        for (int i = 0; i < 10; i++) {
+            loginAttemptService.loginFailed("user" + i + "@example.com", IP);
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> loginAttemptService.checkAllowed("other@example.com", IP));
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed("other@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    public void slidingWindow_shouldForgetOldFailures() {
+        fail(2);
+        clock.advance(Duration.ofMinutes(30));
+        fail(2);
+
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(USER, IP));
+    }
+
+    @Test
+    public void loginSucceeded_shouldResetUserButNotIp() {
+        fail(2);
+        loginAttemptService.loginSucceeded(USER);
+        fail(2);
+
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(USER, IP));
+        List<LoginAttemptDto> attempts = loginAttemptService.getAttempts();
+        assertEquals(4.0, attempts.stream().filter(a -> a.getKey().equals("ip:" + IP))
+                .findFirst().orElseThrow().getFailures());
+    }
+
+    @Test
+    public void getAttempts_shouldListBlockedKeysFirst_andResetShouldUnblock() {
+        loginAttemptService.loginFailed("other@example.com", "10.0.0.9");
+        fail(3);
+
+        List<LoginAttemptDto> attempts = loginAttemptService.getAttempts();
+        assertEquals("user:" + USER, attempts.get(0).getKey());
+        assertNotNull(attempts.get(0).getBlockedUntil());
+
+        assertTrue(loginAttemptService.reset("user:" + USER));
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(USER, IP));
+        assertFalse(loginAttemptService.reset("user:unknown@example.com"));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            loginAttemptService.loginFailed(USER, IP);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.NotificationDto;
+import org.novize.api.enums.NotificationType;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.OutboxEvent;
+import org.novize.api.model.User;
+import org.novize.api.repository.OutboxEventRepository;
+import org.novize.api.repository.RoleRepository;
+import org.novize.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Eigene Datenbank: Dispatcher anderer, noch offener Testkontexte würden sonst mitlesen
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:outbox-test;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class OutboxDispatcherTest {
+
+    @MockitoBean
+    private TimerSchedulerService timerSchedulerService;
+    @MockitoSpyBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private PresenceService presenceService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User recipient;
+
+    @BeforeEach
+    public void setup() {
+        var role = roleRepository.findByName(RoleEnum.USER).orElseThrow();
+        recipient = userRepository.save(User.builder()
+                .firstname("Outbox").lastname("Test")
+                .username("outbox-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .password("secret").role(role).build());
+        // Empfänger ist online
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+        accessor.setSessionId("session-" + recipient.getId());
+        presenceService.onConnected(new SessionConnectedEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()),
+                new UsernamePasswordAuthenticationToken(recipient.getEmail(), null, List.of())));
+    }
+
+    @Test
+    public void rolledBackTransaction_shouldNotPublish() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.sendNotification(recipient, NotificationType.TASK_SHARED, "rolled back", "{}");
+            status.setRollbackOnly();
+        });
+        outboxDispatcher.dispatch();
+        Thread.sleep(300);
+
+        assertTrue(pendingEvents().isEmpty());
+        verify(notificationService, never()).deliver(eq(recipient.getEmail()), any(), any());
+    }
+
+    @Test
+    public void committedNotification_shouldBePublishedAndRemoved() {
+        NotificationDto sent = notificationService.sendNotification(
+                recipient, NotificationType.TASK_SHARED, "committed", "{}");
+
+        outboxDispatcher.dispatch();
+
+        verify(notificationService, timeout(5000)).deliver(eq(recipient.getEmail()),
+                argThat(dto -> sent.getId().equals(dto.getId())), anyString());
+        awaitNoPendingEvents();
+    }
+
+    @Test
+    public void concurrentDispatchers_shouldPublishEachEventOnce() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            notificationService.sendNotification(recipient, NotificationType.TASK_SHARED, "event " + i, "{}");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(outboxDispatcher::dispatch);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        awaitNoPendingEvents();
+        verify(notificationService, times(20)).deliver(eq(recipient.getEmail()), any(), anyString());
+    }
+
+    private List<OutboxEvent> pendingEvents() {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getRecipient().equals(recipient.getEmail()))
+                .toList();
+    }
+
+    private void awaitNoPendingEvents() {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!pendingEvents().isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        assertTrue(pendingEvents().isEmpty(), "Outbox should be drained");
+    }
+}
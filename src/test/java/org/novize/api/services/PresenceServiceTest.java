@@ -0,0 +1,199 @@
+package org.novize.api.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.model.UserPresence;
+import org.novize.api.repository.UserPresenceRepository;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PresenceServiceTest {
+    private static final String INSTANCE = "instance-1";
+
+    @Mock
+    private UserPresenceRepository userPresenceRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PresenceService presenceService;
+    // Schreib-Tasks werden gesammelt und erst im Test ausgeführt
+    private final List<Runnable> writeTasks = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        presenceService = presenceService(BrokerMode.SIMPLE);
+    }
+
+    @Test
+    public void isOnline_shouldFollowLocalSessions() {
+        Principal alice = user("alice@example.com");
+        presenceService.onConnected(connected("s1", alice));
+        presenceService.onConnected(connected("s2", alice));
+        assertTrue(presenceService.isOnline("alice@example.com"));
+
+        presenceService.onDisconnect(disconnected("s1", alice));
+        assertTrue(presenceService.isOnline("alice@example.com"));
+
+        presenceService.onDisconnect(disconnected("s2", alice));
+        assertFalse(presenceService.isOnline("alice@example.com"));
+        // Simple-Broker: keine Abfrage anderer Instanzen
+        verifyNoInteractions(userPresenceRepository);
+    }
+
+    @Test
+    public void isOnline_withRelay_shouldAskOtherInstances() {
+        PresenceService clustered = presenceService(BrokerMode.RELAY);
+        when(userPresenceRepository.existsByUsernameAndLastHeartbeatAfter(eq("bob@example.com"), any())).thenReturn(true);
+
+        assertTrue(clustered.isOnline("bob@example.com"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void onConnected_withRelay_shouldWritePresenceBeforeFirstHeartbeat() {
+        PresenceService clustered = presenceService(BrokerMode.RELAY);
+        Principal alice = user("alice@example.com");
+
+        clustered.onConnected(connected("s1", alice));
+        clustered.onConnected(connected("s2", alice));
+        runWriteTasks();
+
+        ArgumentCaptor<List<UserPresence>> saved = ArgumentCaptor.forClass(List.class);
+        verify(userPresenceRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals("alice@example.com", saved.getValue().get(0).getUsername());
+        assertEquals(INSTANCE, saved.getValue().get(0).getInstanceId());
+        assertNotNull(saved.getValue().get(0).getLastHeartbeat());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void onConnected_withRelay_shouldWriteOffTheEventThreadInOneBatch() {
+        PresenceService clustered = presenceService(BrokerMode.RELAY);
+
+        clustered.onConnected(connected("s1", user("alice@example.com")));
+        clustered.onConnected(connected("s2", user("bob@example.com")));
+        clustered.onConnected(connected("s3", user("carol@example.com")));
+
+        // Der Event-Thread fragt die Datenbank nicht
+        verifyNoInteractions(userPresenceRepository);
+        assertEquals(1, writeTasks.size());
+
+        runWriteTasks();
+
+        ArgumentCaptor<List<UserPresence>> saved = ArgumentCaptor.forClass(List.class);
+        verify(userPresenceRepository, times(1)).findUsernamesByInstanceIdAndUsernameIn(eq(INSTANCE), any());
+        verify(userPresenceRepository, times(1)).saveAll(saved.capture());
+        assertEquals(Set.of("alice@example.com", "bob@example.com", "carol@example.com"),
+                saved.getValue().stream().map(UserPresence::getUsername).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void onConnected_withRelayAndExistingRow_shouldNotInsertTwice() {
+        PresenceService clustered = presenceService(BrokerMode.RELAY);
+        when(userPresenceRepository.findUsernamesByInstanceIdAndUsernameIn(INSTANCE, List.of("alice@example.com")))
+                .thenReturn(List.of("alice@example.com"));
+
+        clustered.onConnected(connected("s1", user("alice@example.com")));
+        runWriteTasks();
+
+        verify(userPresenceRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void onlineUsernames_withRelay_shouldOnlyQueryUsersNotConnectedLocally() {
+        PresenceService clustered = presenceService(BrokerMode.RELAY);
+        clustered.onConnected(connected("s1", user("alice@example.com")));
+        when(userPresenceRepository.findOnlineUsernames(eq(List.of("bob@example.com", "carol@example.com")), any()))
+                .thenReturn(List.of("bob@example.com"));
+
+        Set<String> online = clustered.onlineUsernames(
+                List.of("alice@example.com", "bob@example.com", "carol@example.com"));
+
+        assertEquals(Set.of("alice@example.com", "bob@example.com"), online);
+    }
+
+    @Test
+    public void onlineUsernames_withSimpleBroker_shouldNotQueryTheDatabase() {
+        presenceService.onConnected(connected("s1", user("alice@example.com")));
+
+        Set<String> online = presenceService.onlineUsernames(
+                List.of("alice@example.com", "bob@example.com", "carol@example.com"));
+
+        assertEquals(Set.of("alice@example.com"), online);
+        verifyNoInteractions(userPresenceRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void heartbeat_shouldInsertJoinedAndDeleteLeftUsers() {
+        presenceService.onConnected(connected("s1", user("alice@example.com")));
+        when(userPresenceRepository.findUsernamesByInstanceId(INSTANCE)).thenReturn(List.of("bob@example.com"));
+
+        presenceService.heartbeat();
+
+        verify(userPresenceRepository).deleteByInstanceIdAndUsernameIn(INSTANCE, List.of("bob@example.com"));
+        verify(userPresenceRepository).touchInstance(eq(INSTANCE), any());
+        ArgumentCaptor<List<UserPresence>> saved = ArgumentCaptor.forClass(List.class);
+        verify(userPresenceRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals("alice@example.com", saved.getValue().get(0).getUsername());
+        assertEquals(INSTANCE, saved.getValue().get(0).getInstanceId());
+        verify(userPresenceRepository).deleteStale(any());
+    }
+
+    private PresenceService presenceService(BrokerMode brokerMode) {
+        return new PresenceService(userPresenceRepository, transactionManager, writeTasks::add, INSTANCE,
+                Duration.ofSeconds(45), brokerMode, new SimpleMeterRegistry());
+    }
+
+    private void runWriteTasks() {
+        List<Runnable> tasks = new ArrayList<>(writeTasks);
+        writeTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static Principal user(String username) {
+        return new UsernamePasswordAuthenticationToken(username, null, List.of());
+    }
+
+    private SessionConnectedEvent connected(String sessionId, Principal user) {
+        return new SessionConnectedEvent(this, message(StompCommand.CONNECTED, sessionId), user);
+    }
+
+    private SessionDisconnectEvent disconnected(String sessionId, Principal user) {
+        return new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, sessionId), sessionId,
+                CloseStatus.NORMAL, user);
+    }
+
+    private static Message<byte[]> message(StompCommand command, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
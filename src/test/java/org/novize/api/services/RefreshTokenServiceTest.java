@@ -1,17 +1,23 @@
 package org.novize.api.services;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.enums.BrokerMode;
 import org.novize.api.exceptions.UserNotFoundException;
 import org.novize.api.model.RefreshToken;
 import org.novize.api.model.User;
+import org.novize.api.exceptions.TokenRefreshException;
 import org.novize.api.repository.RefreshTokenRepository;
+import org.novize.api.repository.RefreshTokenRepository.ActiveRefreshToken;
 import org.novize.api.repository.UserRepository;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,6 +37,14 @@ public class RefreshTokenServiceTest {
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenExpiration", 60000L);
+        ReflectionTestUtils.setField(refreshTokenService, "cacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(refreshTokenService, "cacheExpireAfterWrite", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(refreshTokenService, "brokerMode", BrokerMode.SIMPLE);
+        refreshTokenService.init();
+    }
 
     @Test
     public void createRefreshToken_whenUserExists_shouldReturnSavedRefreshToken() {
@@ -74,4 +88,116 @@ public class RefreshTokenServiceTest {
         verify(userRepository, times(1)).findByEmail(username);
         verify(refreshTokenRepository, never()).save(Mockito.any(RefreshToken.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createRefreshToken_shouldStoreOnlyTheHash() {
+        User user = user("hash@example.com");
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+
+        assertNotNull(refreshToken.getToken());
+        assertEquals(JwtService.hash(refreshToken.getToken()), refreshToken.getTokenHash());
+        assertNotEquals(refreshToken.getToken(), refreshToken.getTokenHash());
+        verify(userRepository, never()).findByEmail(Mockito.anyString());
+    }
+
+    @Test
+    public void findUserByValidToken_afterCreate_shouldNotQueryTokenTable() {
+        User user = user("cached@example.com");
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById("id")).thenReturn(Optional.of(user));
+        String token = refreshTokenService.createRefreshToken(user).getToken();
+
+        assertEquals(Optional.of(user), refreshTokenService.findUserByValidToken(token));
+        verify(refreshTokenRepository, never()).findActiveByTokenHash(Mockito.anyString());
+    }
+
+    @Test
+    public void findUserByValidToken_onCacheMiss_shouldQueryOnceByHash() {
+        User user = user("miss@example.com");
+        String hash = JwtService.hash("token");
+        when(refreshTokenRepository.findActiveByTokenHash(hash))
+                .thenReturn(Optional.of(new ActiveRefreshToken("id", Instant.now().plusSeconds(60))));
+        when(userRepository.findById("id")).thenReturn(Optional.of(user));
+
+        refreshTokenService.findUserByValidToken("token");
+        refreshTokenService.findUserByValidToken("token");
+
+        verify(refreshTokenRepository, times(1)).findActiveByTokenHash(hash);
+    }
+
+    @Test
+    public void findUserByValidToken_whenExpired_shouldDeleteAndThrow() {
+        String hash = JwtService.hash("expired");
+        when(refreshTokenRepository.findActiveByTokenHash(hash))
+                .thenReturn(Optional.of(new ActiveRefreshToken("id", Instant.now().minusSeconds(1))));
+
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.findUserByValidToken("expired"));
+        verify(refreshTokenRepository).deleteByTokenHash(hash);
+        verify(userRepository, never()).findById(Mockito.anyString());
+    }
+
+    @Test
+    public void deleteByUserId_shouldEvictCachedToken() {
+        User user = user("logout@example.com");
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String token = refreshTokenService.createRefreshToken(user).getToken();
+
+        refreshTokenService.deleteByUserId("id");
+
+        assertTrue(refreshTokenService.findUserIdByToken(token).isEmpty());
+        verify(refreshTokenRepository).findActiveByTokenHash(JwtService.hash(token));
+    }
+
+    @Test
+    public void findUserByValidToken_withSharedBroker_shouldRejectTokenDeletedOnAnotherInstance() {
+        ReflectionTestUtils.setField(refreshTokenService, "brokerMode", BrokerMode.RELAY);
+        refreshTokenService.init();
+        User user = user("cluster@example.com");
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String token = refreshTokenService.createRefreshToken(user).getToken();
+        // Logout auf einer anderen Instanz, die Zeile ist weg
+        when(refreshTokenRepository.findActiveByTokenHash(JwtService.hash(token))).thenReturn(Optional.empty());
+
+        assertTrue(refreshTokenService.findUserByValidToken(token).isEmpty());
+        verify(refreshTokenRepository).findActiveByTokenHash(JwtService.hash(token));
+        verify(userRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void rotateRefreshToken_whenTokenExists_shouldUpdateInPlace() {
+        User user = user("rotate@example.com");
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String oldToken = refreshTokenService.createRefreshToken(user).getToken();
+        when(refreshTokenRepository.rotateForUser(eq("id"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        String newToken = refreshTokenService.rotateRefreshToken(user).getToken();
+
+        assertNotEquals(oldToken, newToken);
+        verify(refreshTokenRepository, times(1)).save(Mockito.any(RefreshToken.class));
+        verify(refreshTokenRepository, never()).deleteByUserId(anyString());
+        assertEquals(Optional.of("id"), refreshTokenService.findUserIdByToken(newToken));
+        assertTrue(refreshTokenService.findUserIdByToken(oldToken).isEmpty());
+    }
+
+    @Test
+    public void rotateRefreshToken_whenNoTokenExists_shouldInsert() {
+        User user = user("first@example.com");
+        when(refreshTokenRepository.rotateForUser(eq("id"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(0);
+        when(refreshTokenRepository.save(Mockito.any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RefreshToken refreshToken = refreshTokenService.rotateRefreshToken(user);
+
+        assertEquals(JwtService.hash(refreshToken.getToken()), refreshToken.getTokenHash());
+        verify(refreshTokenRepository).save(refreshToken);
+        assertEquals(Optional.of("id"), refreshTokenService.findUserIdByToken(refreshToken.getToken()));
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setId("id");
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,96 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.enums.NotificationType;
+import org.novize.api.model.Notification;
+import org.novize.api.model.RefreshToken;
+import org.novize.api.model.User;
+import org.novize.api.repository.NotificationRepository;
+import org.novize.api.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"retention.batch-size=2", "retention.batch-pause=0ms"})
+@ActiveProfiles("test")
+public class RetentionServiceTest {
+
+    @Autowired
+    private RetentionService retentionService;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private TestUsers testUsers;
+
+    private User recipient;
+
+    @BeforeEach
+    public void setup() {
+        recipient = testUsers.create("Retention");
+    }
+
+    @Test
+    public void purgeExpiredRefreshTokens_shouldDeleteOnlyExpiredTokensAcrossBatches() {
+        List<Integer> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(saveRefreshToken(testUsers.create("Retention"), Instant.now().minus(1, ChronoUnit.DAYS)).getId());
+        }
+        int valid = saveRefreshToken(recipient, Instant.now().plus(1, ChronoUnit.DAYS)).getId();
+
+        long deleted = retentionService.purgeExpiredRefreshTokens();
+
+        assertTrue(deleted >= expired.size());
+        expired.forEach(id -> assertFalse(refreshTokenRepository.existsById((long) id)));
+        assertTrue(refreshTokenRepository.existsById((long) valid));
+    }
+
+    @Test
+    public void purgeReadNotifications_shouldDeleteOnlyAgedReadNotifications() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        List<String> aged = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            aged.add(saveNotification(true, old.plusSeconds(i % 2)).getId());
+        }
+        String recentRead = saveNotification(true, LocalDateTime.now().minusDays(1)).getId();
+        String oldUnread = saveNotification(false, old).getId();
+
+        long deleted = retentionService.purgeReadNotifications();
+
+        assertTrue(deleted >= aged.size());
+        aged.forEach(id -> assertFalse(notificationRepository.existsById(id)));
+        assertTrue(notificationRepository.existsById(recentRead));
+        assertTrue(notificationRepository.existsById(oldUnread));
+    }
+
+    private RefreshToken saveRefreshToken(User user, Instant expiryDate) {
+        return refreshTokenRepository.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(UUID.randomUUID().toString())
+                .createdDate(expiryDate.minus(7, ChronoUnit.DAYS))
+                .expiryDate(expiryDate)
+                .build());
+    }
+
+    private Notification saveNotification(boolean read, LocalDateTime createdAt) {
+        Notification notification = new Notification();
+        notification.setRecipient(recipient);
+        notification.setType(NotificationType.FRIEND_REQUEST);
+        notification.setMessage("Retention test");
+        notification.setRead(read);
+        notification.setCreatedAt(createdAt);
+        return notificationRepository.save(notification);
+    }
+}
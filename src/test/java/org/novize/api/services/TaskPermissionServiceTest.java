@@ -0,0 +1,142 @@
+package org.novize.api.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskPermissionServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private TaskPermissionService taskPermissionService;
+    private User owner;
+    private User friend;
+    private User stranger;
+
+    @BeforeEach
+    public void setup() {
+        taskPermissionService = new TaskPermissionService(taskRepository, BrokerMode.SIMPLE, 100, Duration.ofMinutes(10));
+        owner = user("owner-id");
+        friend = user("friend-id");
+        stranger = user("stranger-id");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void checkAccess_ShouldAllowOwnerAndSharedUsersAndDenyOthers() {
+        when(taskRepository.findPermissionRows("t1"))
+                .thenReturn(List.<Object[]>of(new Object[]{"owner-id", "friend-id"}));
+
+        assertDoesNotThrow(() -> taskPermissionService.checkAccess("t1", owner.getId()));
+        assertDoesNotThrow(() -> taskPermissionService.checkOwner("t1", owner.getId()));
+        assertDoesNotThrow(() -> taskPermissionService.checkAccess("t1", friend.getId()));
+        assertThrows(AccessDeniedException.class, () -> taskPermissionService.checkOwner("t1", friend.getId()));
+        assertThrows(AccessDeniedException.class, () -> taskPermissionService.checkAccess("t1", stranger.getId()));
+        assertThrows(AccessDeniedException.class, () -> taskPermissionService.checkAccess("t1", null));
+        // Eine Abfrage, danach nur noch der Index
+        verify(taskRepository, times(1)).findPermissionRows("t1");
+    }
+
+    @Test
+    public void checkAccess_WhenTaskDoesNotExist_ShouldThrowNotFound() {
+        when(taskRepository.findPermissionRows("nonexistent")).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> taskPermissionService.checkAccess("nonexistent", owner.getId()));
+        assertFalse(taskPermissionService.hasAccess("nonexistent", owner.getId()));
+    }
+
+    @Test
+    public void update_ShouldReplaceLoadedEntry() {
+        when(taskRepository.findPermissionRows("t1")).thenReturn(List.<Object[]>of(new Object[]{"owner-id", null}));
+        assertFalse(taskPermissionService.hasAccess("t1", friend.getId()));
+
+        taskPermissionService.update(task("t1", owner, Set.of(friend)));
+
+        assertTrue(taskPermissionService.hasAccess("t1", friend.getId()));
+        assertFalse(taskPermissionService.isOwner("t1", friend.getId()));
+    }
+
+    @Test
+    public void update_InsideTransaction_ShouldOnlyApplyAfterCommit() {
+        when(taskRepository.findPermissionRows("t1")).thenReturn(List.<Object[]>of(new Object[]{"owner-id", null}));
+        assertFalse(taskPermissionService.hasAccess("t1", friend.getId()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        taskPermissionService.update(task("t1", owner, Set.of(friend)));
+        assertFalse(taskPermissionService.hasAccess("t1", friend.getId()));
+
+        // Bei einem Rollback würde afterCommit nie aufgerufen
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertTrue(taskPermissionService.hasAccess("t1", friend.getId()));
+    }
+
+    @Test
+    public void remove_ShouldReloadOnNextCheck() {
+        when(taskRepository.findPermissionRows("t1"))
+                .thenReturn(List.<Object[]>of(new Object[]{"owner-id", null}))
+                .thenReturn(List.of());
+        assertTrue(taskPermissionService.hasAccess("t1", owner.getId()));
+
+        taskPermissionService.remove("t1");
+
+        assertThrows(EntityNotFoundException.class, () -> taskPermissionService.checkAccess("t1", owner.getId()));
+    }
+
+    @Test
+    public void checks_WithSharedBroker_ShouldAlwaysAskTheDatabase() {
+        TaskPermissionService clustered = new TaskPermissionService(taskRepository, BrokerMode.RELAY, 100, Duration.ofMinutes(10));
+        // Eine andere Instanz hebt das Teilen auf, dieser Knoten erfährt davon nichts
+        when(taskRepository.findPermissionRows("t1"))
+                .thenReturn(List.<Object[]>of(new Object[]{"owner-id", "friend-id"}))
+                .thenReturn(List.<Object[]>of(new Object[]{"owner-id", null}));
+
+        assertTrue(clustered.hasAccess("t1", friend.getId()));
+        clustered.update(task("t1", owner, Set.of(friend)));
+        assertFalse(clustered.hasAccess("t1", friend.getId()));
+        assertThrows(AccessDeniedException.class, () -> clustered.checkAccess("t1", friend.getId()));
+        verify(taskRepository, times(3)).findPermissionRows("t1");
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Task task(String id, User owner, Set<User> sharedWith) {
+        Task task = new Task();
+        task.setId(id);
+        task.setUser(owner);
+        task.setSharedWith(new HashSet<>(sharedWith));
+        return task;
+    }
+}
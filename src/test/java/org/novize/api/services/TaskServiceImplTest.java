@@ -1,12 +1,15 @@
 package org.novize.api.services;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.novize.api.auth.AuthenticatedUser;
 import org.novize.api.dtos.task.CreateTaskDto;
 import org.novize.api.dtos.task.TaskDto;
 import org.novize.api.dtos.task.UpdateTaskDto;
+import org.novize.api.enums.RoleEnum;
 import org.novize.api.enums.Urgency;
 import org.novize.api.exceptions.UserNotFoundException;
 import org.novize.api.model.Task;
@@ -15,11 +18,11 @@ import org.novize.api.repository.TaskRepository;
 import org.novize.api.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
@@ -43,8 +46,14 @@ public class TaskServiceImplTest {
     @MockitoBean
     private UserRepository userRepository;
 
+    // Zugriffsprüfungen werden in TaskPermissionServiceTest getestet
     @MockitoBean
-    private UserDetailsService userDetailsService;
+    private TaskPermissionService taskPermissionService;
+
+    @AfterEach
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
 
     @Test
     public void testCreateTask_Success() {
@@ -55,17 +64,7 @@ public class TaskServiceImplTest {
         mockUser.setLastname("Doe");
         mockUser.setUsername("john.doe@email.com");
         mockUser.setPassword("password123");
-
-        Authentication mockAuthentication = mock(Authentication.class);
-        when(mockAuthentication.getName()).thenReturn("john.doe@email.com");
-
-
-        SecurityContext mockSecurityContext = mock(SecurityContext.class);
-        when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
-        SecurityContextHolder.setContext(mockSecurityContext);
-
-        when(userDetailsService.loadUserByUsername("john.doe@email.com")).thenReturn(mockUser);
-
+        authenticate(mockUser);
 
         // Prepare task DTO
         CreateTaskDto createTaskDto = CreateTaskDto.builder()
@@ -81,8 +80,7 @@ public class TaskServiceImplTest {
         mockTask.setCreatedAt(LocalDateTime.now());
         mockTask.setUpdatedAt(LocalDateTime.now());
 
-        when(userRepository.findByEmail(any())).thenReturn(Optional.of(mockUser));
-        when(userDetailsService.loadUserByUsername("john.doe@email.com")).thenReturn(mockUser);
+        when(userRepository.getReferenceById("test-id")).thenReturn(mockUser);
         when(taskRepository.save(Mockito.any(Task.class))).thenReturn(mockTask);
 
         // Execute
@@ -127,7 +125,9 @@ public class TaskServiceImplTest {
         RuntimeException exception = assertThrows(RuntimeException.class, () -> taskService.create(createTaskDto));
         assertEquals("User not found", exception.getMessage());
 
-        verifyNoInteractions(userDetailsService, taskRepository);
+        // Seeder und Timer-Scheduler benutzen dieselben Repository-Mocks, daher nur die betroffenen Aufrufe prüfen
+        verify(userRepository, never()).getReferenceById(any());
+        verify(taskRepository, never()).save(any());
     }
 
     @Test
@@ -165,6 +165,8 @@ public class TaskServiceImplTest {
         mockTask.setDescription("Test Description");
         mockTask.setUrgency(Urgency.HIGH);
         mockTask.setDueDate(LocalDateTime.now());
+        mockTask.setUser(createMockUser("owner-id", 0L));
+        authenticate(createMockUser("owner-id", 0L));
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(mockTask));
 
@@ -175,6 +177,20 @@ public class TaskServiceImplTest {
         assertEquals(mockTask.getName(), result.getName());
         assertEquals(mockTask.getDescription(), result.getDescription());
         assertEquals(mockTask.getUrgency(), result.getUrgency());
+        assertTrue(result.isOwner());
+        verify(taskPermissionService).checkAccess(taskId, "owner-id");
+    }
+
+    @Test
+    public void testGetTaskById_AccessDenied() {
+        String taskId = "test-task-id";
+        authenticate(createMockUser("stranger-id", 0L));
+        doThrow(new AccessDeniedException("Sie haben keinen Zugriff auf diese Aufgabe"))
+                .when(taskPermissionService).checkAccess(taskId, "stranger-id");
+
+        assertThrows(AccessDeniedException.class, () -> taskService.getById(taskId));
+        // Der Task wird gar nicht erst geladen
+        verify(taskRepository, never()).findById(taskId);
     }
 
     @Test
@@ -183,6 +199,7 @@ public class TaskServiceImplTest {
         String taskId = "test-task-id";
         Task mockTask = new Task();
         mockTask.setId(taskId);
+        authenticate(createMockUser("testuser", 0L));
 
         doNothing().when(taskRepository).deleteById(taskId);
 
@@ -190,6 +207,7 @@ public class TaskServiceImplTest {
         taskService.deleteById(taskId);
 
         // Assert
+        verify(taskPermissionService).checkOwner(taskId, "testuser");
         verify(taskRepository).deleteById(taskId);
     }
 
@@ -209,6 +227,7 @@ public class TaskServiceImplTest {
                 .dueDate(LocalDateTime.now())
                 .build();
 
+        authenticate(createMockUser("testuser", 0L));
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(existingTask));
         when(taskRepository.save(any(Task.class))).thenReturn(existingTask);
 
@@ -218,6 +237,7 @@ public class TaskServiceImplTest {
         assertEquals("Updated Name", result.getName());
         assertEquals("Updated Description", result.getDescription());
         assertEquals(Urgency.HIGH, result.getUrgency());
+        verify(taskPermissionService).checkAccess(taskId, "testuser");
     }
 
     // Hilfsmethoden für die Testdaten-Erstellung
@@ -228,6 +248,13 @@ public class TaskServiceImplTest {
         return user;
     }
 
+    // Principal wie vom JwtAuthenticationFilter gesetzt
+    private void authenticate(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getUsername(), RoleEnum.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
     private Task createMockTask(String taskId, String taskName, boolean completed) {
         Task task = new Task();
         task.setId(taskId);
@@ -237,9 +264,9 @@ public class TaskServiceImplTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = {"USER"})
     public void testSetTaskCompleted_TaskNotFound() {
         String taskId = "nonexistent-task-id";
+        authenticate(createMockUser("testuser", 0L));
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
 
@@ -253,7 +280,6 @@ public class TaskServiceImplTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = {"USER"})
     public void testSetTaskCompleted_UserNotFound() {
         String taskId = "test-task-id";
 
@@ -261,8 +287,9 @@ public class TaskServiceImplTest {
 
         mockTask.setId(taskId);
 
+        authenticate(createMockUser("testuser", 0L));
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(mockTask));
-        when(userDetailsService.loadUserByUsername("testuser")).thenThrow(new UserNotFoundException("User not found"));
+        when(userRepository.findById("testuser")).thenReturn(Optional.empty());
 
         UserNotFoundException exception = assertThrows(
                 UserNotFoundException.class,
@@ -270,11 +297,11 @@ public class TaskServiceImplTest {
         );
 
         assertEquals("User not found", exception.getMessage());
-        verifyNoInteractions(userRepository);
+        verify(userRepository, never()).save(any());
+        verify(taskRepository, never()).save(any());
     }
 
 
-    @WithMockUser(username = "testuser", roles = {"USER"})
     @Test
     public void testSetTaskCompleted_Success() {
 
@@ -283,9 +310,10 @@ public class TaskServiceImplTest {
         Task mockTask = createMockTask(taskId, "Test Task", false);
         Task mockCompletedTask = createMockTask(taskId, "Test Task", true);
         User mockUser = createMockUser("testuser", 1000L);
+        authenticate(mockUser);
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(mockTask));
-        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(mockUser);
+        when(userRepository.findById("testuser")).thenReturn(Optional.of(mockUser));
         when(userRepository.save(any(User.class))).thenReturn(mockUser);
         when(taskRepository.save(any(Task.class))).thenReturn(mockCompletedTask);
 
@@ -300,7 +328,8 @@ public class TaskServiceImplTest {
         verify(taskRepository).save(any(Task.class));
         verify(userRepository).save(mockUser);
         verify(taskRepository).findById(taskId);
-        verify(userDetailsService).loadUserByUsername("testuser");
+        verify(userRepository).findById("testuser");
+        assertEquals(1010L, mockUser.getXp());
 
 
     }
@@ -0,0 +1,158 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.TestUsers;
+import org.novize.api.auth.AuthenticatedUser;
+import org.novize.api.dtos.task.TaskSummaryDto;
+import org.novize.api.dtos.task.TaskSummaryListDto;
+import org.novize.api.enums.TaskField;
+import org.novize.api.enums.Urgency;
+import org.novize.api.model.Task;
+import org.novize.api.model.User;
+import org.novize.api.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharing and search against the database, the permission index itself is covered by {@link TaskPermissionServiceTest}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TaskSharingTest {
+
+    @Autowired
+    private TaskPermissionService taskPermissionService;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User owner;
+    private User friend;
+    private User stranger;
+    private String taskId;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            owner = testUsers.create("Owner");
+            friend = testUsers.create("Friend");
+            stranger = testUsers.create("Stranger");
+
+            Task task = Task.builder()
+                    .name("Task")
+                    .urgency(Urgency.LOW)
+                    .dueDate(LocalDateTime.now().plusDays(1))
+                    .user(owner)
+                    .build();
+            taskId = taskRepository.save(task).getId();
+        });
+    }
+
+    @Test
+    public void manageTaskSharing_ShouldKeepIndexInSync() {
+        // Index laden, bevor geteilt wird
+        assertFalse(taskPermissionService.hasAccess(taskId, friend.getId()));
+
+        transactionTemplate.executeWithoutResult(status ->
+                taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), true));
+
+        assertTrue(taskPermissionService.hasAccess(taskId, friend.getId()));
+        assertFalse(taskPermissionService.isOwner(taskId, friend.getId()));
+        assertFalse(taskPermissionService.hasAccess(taskId, stranger.getId()));
+        assertThrows(AccessDeniedException.class, () -> taskPermissionService.checkOwner(taskId, friend.getId()));
+
+        transactionTemplate.executeWithoutResult(status ->
+                taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), false));
+
+        assertFalse(taskPermissionService.hasAccess(taskId, friend.getId()));
+    }
+
+    @Test
+    public void search_ShouldOnlyFindOwnedAndSharedTasks() {
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, taskService.findByName("task", 1, 10, AuthenticatedUser.of(owner)).getTotalElements());
+            assertEquals(0, taskService.findByName("task", 1, 10, AuthenticatedUser.of(stranger)).getTotalElements());
+            assertEquals(0, taskService.findByName(null, 1, 10, AuthenticatedUser.of(friend)).getTotalElements());
+        });
+
+        transactionTemplate.executeWithoutResult(status ->
+                taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), true));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(taskId, taskService.findByName("TAS", 1, 10, AuthenticatedUser.of(friend)).getContent().getFirst().getId());
+            assertEquals(1, taskService.search(null, 1, 10, AuthenticatedUser.of(friend)).getCount());
+            assertEquals(0, taskService.search("", 1, 10, AuthenticatedUser.of(stranger)).getCount());
+        });
+    }
+
+    @Test
+    public void searchSummaries_ShouldOnlyListAccessibleTasksWithSharedUsersLikeTaskDto() {
+        transactionTemplate.executeWithoutResult(status ->
+                taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), true));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<TaskField> fields = EnumSet.of(TaskField.ID, TaskField.SHARED_WITH);
+            assertEquals(0, taskService.searchSummaries(null, 1, 10, AuthenticatedUser.of(stranger), fields).getCount());
+
+            TaskSummaryListDto result = taskService.searchSummaries("task", 1, 10, AuthenticatedUser.of(friend), fields);
+            assertEquals(1, result.getCount());
+            TaskSummaryDto summary = result.getTasks().getFirst();
+            assertEquals(taskId, summary.getId());
+            assertEquals(friend.getUsername(), summary.getSharedWith().getFirst().getUsername());
+            assertEquals(friend.getId(), summary.getSharedWith().getFirst().getId());
+        });
+    }
+
+    @Test
+    public void listQueries_WithoutTransaction_ShouldOnlyNeedTheUserId() {
+        // Wie in den Controllern: keine Transaktion, der Benutzer ist nur eine Referenz
+        AuthenticatedUser viewer = AuthenticatedUser.of(owner);
+
+        assertEquals(taskId, taskService.getTaskSummariesByUserAndRelation(viewer, null, EnumSet.of(TaskField.ID))
+                .getFirst().getId());
+        assertEquals(1, taskService.findTaskChunkByUserAndRelation(viewer, null, null, PageRequest.of(0, 10)).size());
+        assertEquals(1, taskService.searchSummaries("task", 1, 10, viewer, EnumSet.of(TaskField.ID)).getCount());
+    }
+
+    @Test
+    public void findByName_ShouldReturnPageUsableAfterTheTransaction() {
+        transactionTemplate.executeWithoutResult(status ->
+                taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), true));
+
+        // Der Controller schreibt die Seite erst nach dem Commit, sharedWith muss dann schon geladen sein
+        Task task = taskService.findByName("task", 1, 10, AuthenticatedUser.of(owner)).getContent().getFirst();
+        assertEquals(friend.getId(), task.getSharedWith().iterator().next().getId());
+    }
+
+    @Test
+    public void update_WhenTransactionRollsBack_ShouldNotChangeIndex() {
+        assertFalse(taskPermissionService.hasAccess(taskId, friend.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.manageTaskSharing(taskId, friend.getUsername(), AuthenticatedUser.of(owner), true);
+            status.setRollbackOnly();
+        });
+
+        assertFalse(taskPermissionService.hasAccess(taskId, friend.getId()));
+    }
+}
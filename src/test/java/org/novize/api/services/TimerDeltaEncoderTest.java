@@ -0,0 +1,66 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.dtos.timer.TimerDeltaDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerDeltaEncoderTest {
+
+    private TimerDeltaEncoder encoder;
+
+    @BeforeEach
+    public void setup() {
+        encoder = new TimerDeltaEncoder(3);
+    }
+
+    @Test
+    public void encode_shouldOmitUnchangedFieldsBetweenKeyframes() {
+        TimerDeltaDto first = encoder.encode("t1", new TimerUpdateDto(3000L, true));
+        TimerDeltaDto second = encoder.encode("t1", new TimerUpdateDto(2000L, true));
+        TimerDeltaDto third = encoder.encode("t1", new TimerUpdateDto(1000L, true));
+        TimerDeltaDto fourth = encoder.encode("t1", new TimerUpdateDto(500L, true));
+
+        int start = first.getSequence();
+        assertEquals(new TimerDeltaDto(true, 3000L, true, start), first);
+        assertEquals(new TimerDeltaDto(null, 2000L, null, start + 1), second);
+        assertEquals(new TimerDeltaDto(null, 1000L, null, start + 2), third);
+        // Keyframe-Intervall erreicht, die Sequenz läuft weiter
+        assertEquals(new TimerDeltaDto(true, 500L, true, start + 3), fourth);
+    }
+
+    @Test
+    public void stoppedTimer_shouldRestartWithKeyframe() {
+        TimerDeltaDto start = encoder.encode("t1", new TimerUpdateDto(3000L, true));
+
+        TimerDeltaDto stop = encoder.encode("t1", new TimerUpdateDto(3000L, false));
+        TimerDeltaDto restart = encoder.encode("t1", new TimerUpdateDto(3000L, true));
+
+        assertEquals(new TimerDeltaDto(null, null, false, start.getSequence() + 1), stop);
+        assertEquals(new TimerDeltaDto(true, 3000L, true, restart.getSequence()), restart);
+    }
+
+    @Test
+    public void reset_shouldForceKeyframe() {
+        encoder.encode("t1", new TimerUpdateDto(3000L, true));
+        encoder.reset("t1");
+
+        TimerDeltaDto next = encoder.encode("t1", new TimerUpdateDto(2000L, true));
+        assertEquals(new TimerDeltaDto(true, 2000L, true, next.getSequence()), next);
+    }
+
+    @Test
+    public void deltaFromAnotherInstance_shouldNotContinueTheClientsSequence() {
+        TimerDeltaEncoder otherInstance = new TimerDeltaEncoder(3);
+        TimerDeltaDto received = encoder.encode("t1", new TimerUpdateDto(3000L, true));
+        otherInstance.encode("t1", new TimerUpdateDto(3000L, true));
+
+        // Delta relativ zu einem Frame, den der Client nie bekommen hat
+        TimerDeltaDto delta = otherInstance.encode("t1", new TimerUpdateDto(2000L, true));
+
+        assertNull(delta.getKeyframe());
+        assertNotEquals(received.getSequence() + 1, delta.getSequence());
+    }
+}
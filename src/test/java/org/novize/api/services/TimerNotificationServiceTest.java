@@ -0,0 +1,112 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.dtos.timer.TimerDeltaDto;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.enums.WireFormat;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TimerNotificationServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private TimerSubscriptionRegistry timerSubscriptionRegistry;
+    @Mock
+    private ActiveTimerCache activeTimerCache;
+    @Spy
+    private QueuedExecutor publishExecutor = new QueuedExecutor();
+    @Spy
+    private TimerDeltaEncoder timerDeltaEncoder = new TimerDeltaEncoder(10);
+
+    @InjectMocks
+    private TimerNotificationService timerNotificationService;
+
+    @Test
+    public void sendTimerUpdate_shouldPublishOnlyTheLatestPendingUpdatePerTask() {
+        when(timerSubscriptionRegistry.shouldPublish(any())).thenReturn(true);
+        TimerUpdateDto tick = new TimerUpdateDto(60_000L, true);
+        TimerUpdateDto pause = new TimerUpdateDto(59_000L, false);
+
+        timerNotificationService.sendTimerUpdate("t1", tick);
+        timerNotificationService.sendTimerUpdate("t1", pause);
+        timerNotificationService.sendTimerUpdate("t2", tick);
+
+        // Ein Executor-Task je Task, der zweite Aufruf für t1 reiht sich nur ein
+        assertEquals(2, publishExecutor.tasks.size());
+        publishExecutor.runAll();
+
+        verify(messagingTemplate).convertAndSend("/topic/task/t1/timer", pause);
+        verify(messagingTemplate, never()).convertAndSend("/topic/task/t1/timer", tick);
+        verify(messagingTemplate).convertAndSend("/topic/task/t2/timer", tick);
+    }
+
+    @Test
+    public void sendTimerUpdate_afterDrain_shouldScheduleAgain() {
+        when(timerSubscriptionRegistry.shouldPublish(any())).thenReturn(true);
+
+        timerNotificationService.sendTimerUpdate("t1", new TimerUpdateDto(60_000L, true));
+        publishExecutor.runAll();
+        timerNotificationService.sendTimerUpdate("t1", new TimerUpdateDto(59_000L, true));
+        publishExecutor.runAll();
+
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/task/t1/timer"), any(TimerUpdateDto.class));
+    }
+
+    @Test
+    public void sendTimerUpdate_whenCborFrameFails_shouldSendKeyframeNext() {
+        ReflectionTestUtils.setField(timerNotificationService, "cborEnabled", true);
+        // Nur ein CBOR-Abonnent
+        when(timerSubscriptionRegistry.shouldPublish("t1")).thenReturn(false);
+        when(timerSubscriptionRegistry.shouldPublish("t1", WireFormat.CBOR)).thenReturn(true);
+        doThrow(new MessageDeliveryException("broker unavailable")).doNothing()
+                .when(messagingTemplate).convertAndSend(eq("/topic/task/t1/timer.cbor"), any(Object.class), anyMap());
+
+        timerNotificationService.sendTimerUpdate("t1", new TimerUpdateDto(60_000L, true));
+        publishExecutor.runAll();
+        timerNotificationService.sendTimerUpdate("t1", new TimerUpdateDto(59_000L, true));
+        publishExecutor.runAll();
+        timerNotificationService.sendTimerUpdate("t1", new TimerUpdateDto(58_000L, true));
+        publishExecutor.runAll();
+
+        ArgumentCaptor<TimerDeltaDto> frames = ArgumentCaptor.forClass(TimerDeltaDto.class);
+        verify(messagingTemplate, times(3)).convertAndSend(eq("/topic/task/t1/timer.cbor"), frames.capture(), anyMap());
+        // Der erste Frame ging verloren, der Client braucht wieder einen vollständigen
+        assertEquals(Boolean.TRUE, frames.getAllValues().get(1).getKeyframe());
+        assertNull(frames.getAllValues().get(2).getKeyframe());
+    }
+
+    static class QueuedExecutor implements TaskExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            List<Runnable> queued = new ArrayList<>(tasks);
+            tasks.clear();
+            queued.forEach(Runnable::run);
+        }
+    }
+}
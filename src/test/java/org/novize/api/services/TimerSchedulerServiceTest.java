@@ -0,0 +1,90 @@
+package org.novize.api.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.dtos.timer.TimerUpdateDto;
+import org.novize.api.model.Task;
+import org.novize.api.repository.TaskRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TimerSchedulerServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private TimerNotificationService timerNotificationService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @InjectMocks
+    private TimerSchedulerService timerSchedulerService;
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(timerSchedulerService, "minInterval", Duration.ofMillis(900));
+        timerSchedulerService.init();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    }
+
+    @Test
+    public void updateActiveTimers_shouldNotifyAboutCompletedTimerAfterTheTickCommitted() {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTimerActive(true);
+        task.setRemainingTimeMillis(500L);
+        task.setLastTimerUpdateTimestamp(LocalDateTime.now().minusSeconds(1));
+        when(taskRepository.claimDueTimers(any())).thenReturn(List.of(task));
+        when(taskRepository.save(task)).thenReturn(task);
+        when(taskRepository.findById("t1")).thenReturn(Optional.of(task));
+
+        timerSchedulerService.updateActiveTimers();
+
+        assertFalse(task.getTimerActive());
+        assertEquals(0L, task.getRemainingTimeMillis());
+        // Erst die kurze Tick-Transaktion, dann die Benachrichtigungen in einer eigenen
+        InOrder inOrder = inOrder(timerNotificationService, transactionManager);
+        inOrder.verify(timerNotificationService).sendTimerTick(eq(task), any(TimerUpdateDto.class));
+        inOrder.verify(transactionManager).commit(transactionStatus);
+        inOrder.verify(timerNotificationService).sendTimerCompletedNotification(task);
+        inOrder.verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    public void updateActiveTimers_withRunningTimer_shouldOnlyTick() {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTimerActive(true);
+        task.setRemainingTimeMillis(60_000L);
+        task.setLastTimerUpdateTimestamp(LocalDateTime.now().minusSeconds(1));
+        when(taskRepository.claimDueTimers(any())).thenReturn(List.of(task));
+        when(taskRepository.save(task)).thenReturn(task);
+
+        timerSchedulerService.updateActiveTimers();
+
+        assertTrue(task.getTimerActive());
+        assertTrue(task.getRemainingTimeMillis() < 60_000L);
+        verify(timerNotificationService).sendTimerTick(eq(task), any(TimerUpdateDto.class));
+        verify(timerNotificationService, never()).sendTimerCompletedNotification(any());
+        verify(transactionManager, times(1)).commit(transactionStatus);
+    }
+}
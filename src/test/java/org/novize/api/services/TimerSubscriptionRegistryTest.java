@@ -0,0 +1,113 @@
+package org.novize.api.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.novize.api.enums.BrokerMode;
+import org.novize.api.enums.WireFormat;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerSubscriptionRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TimerSubscriptionRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new TimerSubscriptionRegistry(BrokerMode.SIMPLE, true, meterRegistry);
+    }
+
+    @Test
+    public void shouldPublish_withoutSubscribers_shouldSkipAndCount() {
+        assertFalse(registry.shouldPublish("t1"));
+
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/task/t1/timer"));
+
+        assertTrue(registry.shouldPublish("t1"));
+        assertEquals(1, meterRegistry.counter("websocket.timer.updates", "outcome", "skipped").count());
+        assertEquals(1, meterRegistry.counter("websocket.timer.updates", "outcome", "published").count());
+    }
+
+    @Test
+    public void unsubscribe_shouldOnlyReleaseItsOwnSubscription() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/task/t1/timer"));
+        registry.onSubscribe(subscribe("s2", "sub-0", "/topic/task/t1/timer"));
+        assertEquals(2, registry.getSubscriberCount("t1"));
+
+        registry.onUnsubscribe(unsubscribe("s1", "sub-0"));
+        assertEquals(1, registry.getSubscriberCount("t1"));
+
+        registry.onUnsubscribe(unsubscribe("s2", "sub-0"));
+        assertFalse(registry.shouldPublish("t1"));
+    }
+
+    @Test
+    public void disconnect_shouldReleaseAllSubscriptionsOfTheSession() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/task/t1/timer"));
+        registry.onSubscribe(subscribe("s1", "sub-1", "/topic/task/t2/timer"));
+        registry.onSubscribe(subscribe("s1", "sub-2", "/user/queue/notifications"));
+
+        registry.onDisconnect(new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, "s1", null, null),
+                "s1", CloseStatus.NORMAL));
+
+        assertEquals(0, registry.getSubscriberCount("t1"));
+        assertEquals(0, registry.getSubscriberCount("t2"));
+        assertEquals(0.0, meterRegistry.get("websocket.timer.watched-tasks").gauge().value());
+    }
+
+    @Test
+    public void cborSubscription_shouldOnlyEnableTheCborTopic() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/task/t1/timer.cbor"));
+
+        assertTrue(registry.shouldPublish("t1", WireFormat.CBOR));
+        assertFalse(registry.shouldPublish("t1"));
+        assertEquals(1, registry.getSubscriberCount("t1", WireFormat.CBOR));
+
+        registry.onUnsubscribe(unsubscribe("s1", "sub-0"));
+        assertFalse(registry.shouldPublish("t1", WireFormat.CBOR));
+    }
+
+    @Test
+    public void relayMode_shouldAlwaysPublish() {
+        TimerSubscriptionRegistry relayRegistry = new TimerSubscriptionRegistry(BrokerMode.RELAY, true, meterRegistry);
+
+        assertTrue(relayRegistry.shouldPublish("t1"));
+    }
+
+    @Test
+    public void taskIdOf_shouldOnlyMatchTimerTopics() {
+        assertEquals("abc", TimerSubscriptionRegistry.taskIdOf("/topic/task/abc/timer"));
+        assertEquals("abc", TimerSubscriptionRegistry.taskIdOf("/topic/task/abc/timer.cbor"));
+        assertNull(TimerSubscriptionRegistry.taskIdOf("/topic/task/abc/comments.cbor"));
+        assertNull(TimerSubscriptionRegistry.taskIdOf("/topic/task/abc/comments"));
+        assertNull(TimerSubscriptionRegistry.taskIdOf("/topic/task//timer"));
+        assertNull(TimerSubscriptionRegistry.taskIdOf("/topic/task/a/b/timer"));
+        assertNull(TimerSubscriptionRegistry.taskIdOf(null));
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        return new SessionSubscribeEvent(this, message(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination));
+    }
+
+    private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        return new SessionUnsubscribeEvent(this, message(StompCommand.UNSUBSCRIBE, sessionId, subscriptionId, null));
+    }
+
+    private static Message<byte[]> message(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,95 @@
+package org.novize.api.services;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novize.api.auth.JwtPrincipal;
+import org.novize.api.enums.RoleEnum;
+import org.novize.api.model.Role;
+import org.novize.api.model.User;
+import org.novize.api.repository.UserRepository;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WebSocketAuthenticationServiceTest {
+    private static final String TOKEN = "header.payload.signature";
+    private static final String EMAIL = "ws@example.com";
+
+    @Mock
+    private JwtService jwtService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SecurityStampService securityStampService;
+
+    private WebSocketAuthenticationService service;
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        service = new WebSocketAuthenticationService(jwtService, userRepository, securityStampService,
+                false, 100, Duration.ofMinutes(5));
+        user = User.builder().username(EMAIL).role(Role.builder().name(RoleEnum.USER).build()).build();
+        user.setId("user-id");
+        user.setSecurityStamp(3L);
+    }
+
+    @Test
+    public void authenticate_twice_shouldValidateAndLoadUserOnce() {
+        when(jwtService.validate(TOKEN)).thenReturn(principal(3L));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(securityStampService.isCurrent("user-id", 3L)).thenReturn(true);
+
+        Authentication handshake = service.authenticate(TOKEN).orElseThrow();
+        Authentication connect = service.authenticate(TOKEN).orElseThrow();
+
+        assertSame(handshake, connect);
+        assertEquals(EMAIL, connect.getName());
+        assertTrue(connect.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+        verify(jwtService, times(1)).validate(TOKEN);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void authenticate_unknownUser_shouldReturnEmptyAndNotCache() {
+        when(jwtService.validate(TOKEN)).thenReturn(principal(3L));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        assertTrue(service.authenticate(TOKEN).isEmpty());
+        assertTrue(service.authenticate(TOKEN).isEmpty());
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void authenticate_afterRevocation_shouldRejectCachedSession() {
+        when(jwtService.validate(TOKEN)).thenReturn(principal(3L));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(securityStampService.isCurrent("user-id", 3L)).thenReturn(true, false);
+
+        service.authenticate(TOKEN);
+
+        assertThrows(JwtException.class, () -> service.authenticate(TOKEN));
+    }
+
+    @Test
+    public void authenticate_withOutdatedStamp_shouldReject() {
+        when(jwtService.validate(TOKEN)).thenReturn(principal(2L));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        assertThrows(JwtException.class, () -> service.authenticate(TOKEN));
+    }
+
+    private static JwtPrincipal principal(Long stamp) {
+        return new JwtPrincipal(EMAIL, "user-id", RoleEnum.USER, stamp, Instant.now(), Instant.now().plusSeconds(3600));
+    }
+}